@@ -5,9 +5,16 @@ import com.prad.PMS.Entity.RoleName;
 import com.prad.PMS.Repository.RoleRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Component
+@Lazy(false) // must run even when lazy initialisation is on
 @RequiredArgsConstructor
 public class DataLoader {
 
@@ -15,9 +22,18 @@ public class DataLoader {
 
     @PostConstruct
     public void loadRoles() {
-        for (RoleName roleName : RoleName.values()) {
-            roleRepository.findByName(roleName)
-                    .orElseGet(() -> roleRepository.save(new Role(null, roleName)));
+        // One read for all roles instead of a findByName round trip per role
+        Set<RoleName> existing = roleRepository.findAll().stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet());
+
+        List<Role> missing = Arrays.stream(RoleName.values())
+                .filter(roleName -> !existing.contains(roleName))
+                .map(roleName -> new Role(null, roleName))
+                .toList();
+
+        if (!missing.isEmpty()) {
+            roleRepository.saveAll(missing);
         }
     }
 }
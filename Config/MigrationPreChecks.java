@@ -0,0 +1,77 @@
+package com.prad.PMS.Config;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks run by Flyway before a migration that would otherwise fail halfway
+ * on data an existing database may hold. V3 adds unique constraints on
+ * users.email and roles.name; databases built by ddl-auto=update never had
+ * them, so duplicates are reported with what to do about them rather than as
+ * a bare constraint error. Duplicates are not removed here: which account to
+ * keep is a decision for whoever owns the data.
+ */
+@Component
+public class MigrationPreChecks implements Callback {
+
+    private static final MigrationVersion UNIQUE_CONSTRAINTS = MigrationVersion.fromVersion("3");
+    private static final int MAX_REPORTED = 20;
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_EACH_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        if (context.getMigrationInfo() == null
+                || !UNIQUE_CONSTRAINTS.equals(context.getMigrationInfo().getVersion())) {
+            return;
+        }
+        List<String> problems = new ArrayList<>();
+        try (Statement statement = context.getConnection().createStatement()) {
+            // Grouped under the column collation, so it finds exactly what the constraint would reject
+            problems.addAll(duplicates(statement, "users", "email"));
+            problems.addAll(duplicates(statement, "roles", "name"));
+        } catch (SQLException e) {
+            throw new FlywayException("Could not check for duplicates before V3", e);
+        }
+        if (!problems.isEmpty()) {
+            throw new FlywayException("V3 adds unique constraints, but the database holds duplicates:\n  "
+                    + String.join("\n  ", problems)
+                    + "\nMerge or delete the extra rows (and their user_roles), then start the application again.");
+        }
+    }
+
+    private static List<String> duplicates(Statement statement, String table, String column) throws SQLException {
+        List<String> found = new ArrayList<>();
+        String sql = "select " + column + ", count(*) from " + table + " where " + column + " is not null"
+                + " group by " + column + " having count(*) > 1 limit " + MAX_REPORTED;
+        try (ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                found.add(table + "." + column + " '" + rows.getString(1) + "' appears " + rows.getLong(2) + " times");
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "migration-pre-checks";
+    }
+}
@@ -0,0 +1,241 @@
+package com.prad.PMS.Config;
+
+import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Entity.RoleName;
+import com.prad.PMS.Monitoring.RequestMetrics;
+import com.prad.PMS.Monitoring.RequestMetrics.CapturedStatement;
+import com.prad.PMS.Repository.AppointmentRepository;
+import com.prad.PMS.Repository.ArchivedAppointmentRepository;
+import com.prad.PMS.Repository.CacheChangeLogRepository;
+import com.prad.PMS.Repository.DoctorRepository;
+import com.prad.PMS.Repository.PatientRepository;
+import com.prad.PMS.Repository.RevokedTokenRepository;
+import com.prad.PMS.Repository.RoleRepository;
+import com.prad.PMS.Repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Query-plan regression check, run with --spring.profiles.active=plan-check
+ * against a migrated database seeded with scripts/plan-check-seed.sql. Calls
+ * each hot repository method inside a rolled-back transaction, captures the
+ * SQL Hibernate actually sent (with its bound parameters) through the
+ * statement-capturing DataSource proxy and EXPLAINs it. Any table read with a
+ * full scan (type=ALL) is a regression unless the query is in
+ * ALLOWED_FULL_SCANS with the reason it is acceptable. The application exits
+ * when the check is done: status 0 if it passed, 1 otherwise, so CI can run it
+ * as a step after migrating and seeding a scratch database. Add a query here
+ * in the change that introduces it.
+ */
+@Slf4j
+@Component
+@Profile("plan-check")
+@RequiredArgsConstructor
+public class QueryPlanCheck implements ApplicationRunner {
+
+    private static final List<String> SEEDED_TABLES =
+            List.of("appointment", "appointment_archive", "patients", "users", "revoked_tokens", "cache_change_log");
+
+    // Scans that are known and accepted; every entry needs its reason
+    private static final Map<String, String> ALLOWED_FULL_SCANS = Map.of(
+            "PatientRepository.findByDiseaseContainingIgnoreCase",
+            "substring search (like '%...%') cannot use a B-tree index; staff-only, and the patients table is small"
+                    + " next to appointments");
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archiveRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final CacheChangeLogRepository changeLogRepository;
+
+    // Below this the optimiser scans on purpose and the plans say nothing
+    @Value("${pms.plan-check.min-rows:10000}")
+    private long minRows;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean passed;
+        try {
+            passed = check();
+        } catch (RuntimeException e) {
+            log.error("Query plan check could not run", e);
+            passed = false;
+        }
+        int exitCode = passed ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private boolean check() {
+        checkSeeded();
+        SEEDED_TABLES.forEach(table -> jdbcTemplate.execute("analyze table " + table));
+
+        Map<String, Runnable> queries = hotQueries();
+        List<String> failures = new ArrayList<>();
+        ALLOWED_FULL_SCANS.keySet().stream()
+                .filter(name -> !queries.containsKey(name))
+                .forEach(name -> failures.add(name + " is allowed a full scan but is not checked; remove the entry"));
+
+        queries.forEach((name, call) -> {
+            List<CapturedStatement> statements = capture(call);
+            if (statements.isEmpty()) {
+                throw new IllegalStateException("No SQL captured for " + name
+                        + "; is StatementCapturingDataSourcePostProcessor wrapping the DataSource?");
+            }
+            for (CapturedStatement statement : statements) {
+                if (!explainable(statement.sql())) {
+                    continue;
+                }
+                for (Map<String, Object> row : jdbcTemplate.queryForList(
+                        "explain " + statement.sql(), statement.parameters().toArray())) {
+                    log.info("{}: table={} type={} key={} rows={}",
+                            name, row.get("table"), row.get("type"), row.get("key"), row.get("rows"));
+                    if (!"ALL".equals(row.get("type"))) {
+                        continue;
+                    }
+                    String reason = ALLOWED_FULL_SCANS.get(name);
+                    if (reason != null) {
+                        log.info("{}: full scan of {} allowed: {}", name, row.get("table"), reason);
+                    } else {
+                        failures.add(name + " -> full scan of " + row.get("table") + " (" + statement.sql() + ")");
+                    }
+                }
+            }
+        });
+
+        if (!failures.isEmpty()) {
+            log.error("Query plan regression:\n  {}", String.join("\n  ", failures));
+            return false;
+        }
+        log.info("Query plan check passed for {} queries", queries.size());
+        return true;
+    }
+
+    private Map<String, Runnable> hotQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        Long doctorId = jdbcTemplate.queryForObject("select min(id) from doctor", Long.class);
+        Long patientId = jdbcTemplate.queryForObject("select min(patient_id) from appointment", Long.class);
+        Long appointmentId = jdbcTemplate.queryForObject("select min(id) from appointment", Long.class);
+        String email = jdbcTemplate.queryForObject("select min(email) from users", String.class);
+        long lastChange = changeLogRepository.findMaxId();
+
+        Map<String, Runnable> q = new LinkedHashMap<>();
+        q.put("AppointmentRepository.findByDoctorId", () -> appointmentRepository.findByDoctorId(doctorId));
+        q.put("AppointmentRepository.findByPatientId", () -> appointmentRepository.findByPatientId(patientId));
+        q.put("AppointmentRepository.findByDateTimeBetween",
+                () -> appointmentRepository.findByDateTimeBetween(now.minusDays(1), now));
+        q.put("AppointmentRepository.findArchivableIds",
+                () -> appointmentRepository.findArchivableIds(EnumSet.of(Appointment.Status.COMPLETED,
+                        Appointment.Status.CANCELLED), now.minusDays(365), 0L, PageRequest.of(0, 500)));
+        q.put("ArchivedAppointmentRepository.findByPatientIdOrderByDateTimeDesc",
+                () -> archiveRepository.findByPatientIdOrderByDateTimeDesc(patientId));
+        q.put("ArchivedAppointmentRepository.findByDateTimeBetween",
+                () -> archiveRepository.findByDateTimeBetween(now.minusYears(4), now.minusYears(4).plusDays(1)));
+        q.put("ArchivedAppointmentRepository.copyFromAppointments",
+                () -> archiveRepository.copyFromAppointments(List.of(appointmentId), now));
+        q.put("RevokedTokenRepository.findActiveJtis", () -> revokedTokenRepository.findActiveJtis(Instant.now()));
+        q.put("UserRepository.findByEmail", () -> userRepository.findByEmail(email));
+        q.put("RoleRepository.findByName", () -> roleRepository.findByName(RoleName.ROLE_PATIENT));
+        q.put("PatientRepository.findByDiseaseContainingIgnoreCase",
+                () -> patientRepository.findByDiseaseContainingIgnoreCase("flu"));
+
+        // Patient overview
+        q.put("PatientRepository.findById", () -> patientRepository.findById(patientId));
+        q.put("AppointmentRepository.findByPatientIdAndDateTimeBeforeOrderByDateTimeDesc",
+                () -> appointmentRepository.findByPatientIdAndDateTimeBeforeOrderByDateTimeDesc(patientId, now));
+        q.put("AppointmentRepository.findByPatientIdAndStatusAndDateTimeGreaterThanEqualOrderByDateTimeAsc",
+                () -> appointmentRepository.findByPatientIdAndStatusAndDateTimeGreaterThanEqualOrderByDateTimeAsc(
+                        patientId, Appointment.Status.SCHEDULED, now));
+        q.put("DoctorRepository.findByPatients_Id", () -> doctorRepository.findByPatients_Id(patientId));
+
+        // Cache change log
+        q.put("CacheChangeLogRepository.findAfter",
+                () -> changeLogRepository.findAfter(Math.max(0, lastChange - 200), PageRequest.of(0, 1000)));
+        q.put("CacheChangeLogRepository.deleteOlderThan",
+                () -> changeLogRepository.deleteOlderThan(Instant.now().minus(1, ChronoUnit.HOURS)));
+
+        // Bulk transitions
+        q.put("AppointmentRepository.lockIdsByDoctorAndRange",
+                () -> appointmentRepository.lockIdsByDoctorAndRange(
+                        doctorId, Appointment.Status.SCHEDULED, now, now.plusDays(7)));
+        q.put("AppointmentRepository.lockOccupiedByDoctorAndRange",
+                () -> appointmentRepository.lockOccupiedByDoctorAndRange(
+                        doctorId, Appointment.Status.SCHEDULED, now, now.plusDays(7)));
+        q.put("AppointmentRepository.lockIdsByStatusBefore",
+                () -> appointmentRepository.lockIdsByStatusBefore(
+                        Appointment.Status.SCHEDULED, now, 0L, PageRequest.of(0, 500)));
+        q.put("AppointmentRepository.updateStatus",
+                () -> appointmentRepository.updateStatus(List.of(appointmentId), Appointment.Status.COMPLETED));
+        q.put("AppointmentRepository.shiftDateTime",
+                () -> appointmentRepository.shiftDateTime(List.of(appointmentId), 30));
+
+        // Availability index
+        q.put("AppointmentRepository.findOccupiedFrom",
+                () -> appointmentRepository.findOccupiedFrom(Appointment.Status.SCHEDULED, now.minusMinutes(30)));
+        q.put("AppointmentRepository.findOccupiedByDoctorFrom",
+                () -> appointmentRepository.findOccupiedByDoctorFrom(doctorId, Appointment.Status.SCHEDULED, now));
+
+        // Census
+        q.put("PatientRepository.findStaysOverlapping",
+                () -> patientRepository.findStaysOverlapping(today.minusDays(30), today.plusDays(1)));
+        q.put("PatientRepository.findStayById", () -> patientRepository.findStayById(patientId));
+        return q;
+    }
+
+    // Runs the call with statement capture on; writes are rolled back
+    private List<CapturedStatement> capture(Runnable call) {
+        RequestMetrics metrics = RequestMetrics.startCapturing();
+        try {
+            tx.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                call.run();
+            });
+        } finally {
+            metrics.stop();
+        }
+        return metrics.getCaptured();
+    }
+
+    private static boolean explainable(String sql) {
+        String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return verb.startsWith("select") || verb.startsWith("update") || verb.startsWith("delete")
+                || verb.startsWith("insert");
+    }
+
+    private void checkSeeded() {
+        for (String table : SEEDED_TABLES) {
+            Long rows = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+            if (rows == null || rows < minRows) {
+                throw new IllegalStateException(table + " holds " + rows + " rows, fewer than pms.plan-check.min-rows ("
+                        + minRows + "); seed the database with scripts/plan-check-seed.sql first");
+            }
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.prad.PMS.Config;
 
 import com.prad.PMS.Security.JwtFilter;
 import com.prad.PMS.Security.CustomUserDetailsService;
+import com.prad.PMS.Security.IdempotencyFilter;
 import com.prad.PMS.Security.OAuth2LoginSuccessHandler;
+import com.prad.PMS.Security.RateLimitFilter;
 import com.prad.PMS.Security.RestAuthenticationEntryPoint;
 import com.prad.PMS.Service.CustomOAuth2UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -15,6 +18,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @EnableMethodSecurity(prePostEnabled = true)
@@ -23,6 +27,8 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final IdempotencyFilter idempotencyFilter;
     private final CustomUserDetailsService userDetailsService;
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler;
@@ -58,7 +64,18 @@ public class SecurityConfig {
                 .formLogin(form -> form.disable());
 
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter, JwtFilter.class); // ✅ Needs the principal resolved by JwtFilter
+        // After authorisation, so a 401/403 is never stored and replayed as the create's outcome
+        http.addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
         return http.build();
     }
+
+    // Only inside the security chain; as a plain servlet filter it would also run before authentication
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilterRegistration() {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(idempotencyFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
@@ -3,12 +3,18 @@ package com.prad.PMS.Controller;
 import com.prad.PMS.Entity.Appointment;
 import com.prad.PMS.Entity.Doctor;
 import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Event.AppointmentEventBus;
+import com.prad.PMS.Projection.ProjectedRows;
 import com.prad.PMS.Service.AppointmentService;
 import com.prad.PMS.Service.DoctorService;
 import com.prad.PMS.Service.PatientService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,6 +26,7 @@ public class AppointmentController {
     private final AppointmentService appointmentService;
     private final DoctorService DoctorService;
     private final PatientService PatientService;
+    private final AppointmentEventBus eventBus;
 
 
     @PostMapping
@@ -45,24 +52,105 @@ public class AppointmentController {
         return appointmentService.getByDoctor(doctorId);
     }
 
+    // Archived appointments are included unless the caller opts out with includeArchived=false
     @GetMapping("/patient/{patientId}")
-    public List<Appointment> getByPatient(@PathVariable Long patientId) {
-        return appointmentService.getByPatient(patientId);
+    public List<Appointment> getByPatient(
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "true") boolean includeArchived
+    ) {
+        return appointmentService.getByPatient(patientId, includeArchived);
     }
 
     @GetMapping("/calendar")
     public List<Appointment> getByDateRange(
             @RequestParam String start,
-            @RequestParam String end
+            @RequestParam String end,
+            @RequestParam(defaultValue = "true") boolean includeArchived
     ) {
         return appointmentService.getByDateRange(
                 LocalDateTime.parse(start),
-                LocalDateTime.parse(end)
+                LocalDateTime.parse(end),
+                includeArchived
         );
     }
 
+    // ✅ Sparse fieldsets, e.g. ?fields=id,dateTime,patientName
+    @GetMapping(params = "fields")
+    public ProjectedRows getAll(@RequestParam String fields) {
+        return appointmentService.getAll(fields);
+    }
+
+    @GetMapping(value = "/doctor/{doctorId}", params = "fields")
+    public ProjectedRows getByDoctor(@PathVariable Long doctorId, @RequestParam String fields) {
+        return appointmentService.getByDoctor(doctorId, fields);
+    }
+
+    @GetMapping(value = "/patient/{patientId}", params = "fields")
+    public ProjectedRows getByPatient(
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestParam String fields
+    ) {
+        return appointmentService.getByPatient(patientId, includeArchived, fields);
+    }
+
+    @GetMapping(value = "/calendar", params = "fields")
+    public ProjectedRows getByDateRange(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestParam String fields
+    ) {
+        return appointmentService.getByDateRange(
+                LocalDateTime.parse(start), LocalDateTime.parse(end), includeArchived, fields);
+    }
+
     @PutMapping("/{id}/cancel")
     public void cancel(@PathVariable Long id) {
         appointmentService.cancel(id);
     }
+
+    // ✅ Bulk transitions, each one UPDATE per transaction; return the affected ids
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @PutMapping("/doctor/{doctorId}/cancel")
+    public List<Long> cancelByDoctor(
+            @PathVariable Long doctorId,
+            @RequestParam String start,
+            @RequestParam String end
+    ) {
+        return appointmentService.cancelByDoctor(doctorId, LocalDateTime.parse(start), LocalDateTime.parse(end));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @PutMapping("/doctor/{doctorId}/reschedule")
+    public List<Long> rescheduleByDoctor(
+            @PathVariable Long doctorId,
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam long offsetMinutes
+    ) {
+        return appointmentService.rescheduleByDoctor(
+                doctorId, LocalDateTime.parse(start), LocalDateTime.parse(end), offsetMinutes);
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @PutMapping("/complete-past")
+    public List<Long> completePast() {
+        return appointmentService.completePast(LocalDateTime.now());
+    }
+
+    @PutMapping("/{id}/complete")
+    public void complete(@PathVariable Long id) {
+        appointmentService.complete(id);
+    }
+
+    // ✅ Push create/cancel/complete deltas instead of polling /doctor/{doctorId}
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) String date,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return eventBus.subscribe(doctorId, date != null ? LocalDate.parse(date) : null, lastEventId);
+    }
 }
@@ -2,13 +2,20 @@ package com.prad.PMS.Controller;
 
 import com.prad.PMS.Entity.*;
 import com.prad.PMS.Repository.*;
+import com.prad.PMS.Security.CustomUserDetailsService;
 import com.prad.PMS.Security.JwtUtil;
+import com.prad.PMS.Security.RateLimitFilter;
+import com.prad.PMS.Security.TokenRevocationService;
+import com.prad.PMS.Service.UniquenessIndex;
 import lombok.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -24,28 +31,49 @@ public class AuthController {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService revocationService;
+    private final UniquenessIndex uniquenessIndex;
+    private final CustomUserDetailsService userDetailsService;
+    private final TransactionTemplate tx;
+    private final RateLimitFilter rateLimitFilter;
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            return ResponseEntity.badRequest().body("Email already in use");
+        // ✅ Atomic reservation, so two concurrent registrations cannot both pass the check
+        if (!uniquenessIndex.reserve(UniquenessIndex.Key.USER_EMAIL, user.getEmail())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Email already in use");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        user.setProvider(AuthProvider.LOCAL);
+        try {
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            user.setProvider(AuthProvider.LOCAL);
 
-//        Role role = roleRepository.findByName(RoleName.ROLE_PATIENT).orElseThrow();
-//        user.setRoles(Set.of(role));
-        Role role1 = roleRepository.findByName(RoleName.ROLE_DOCTOR).orElseThrow();
-        user.setRoles(Set.of(role1));
+//            Role role = roleRepository.findByName(RoleName.ROLE_PATIENT).orElseThrow();
+//            user.setRoles(Set.of(role));
+            Role role1 = roleRepository.findByName(RoleName.ROLE_DOCTOR).orElseThrow();
+            user.setRoles(Set.of(role1));
 
-
-        userRepository.save(user);
+            // ✅ User row and change-log entries commit together, so a failure cannot leave one without the other
+            tx.executeWithoutResult(status -> {
+                User u = userRepository.save(user);
+                userDetailsService.evict(u.getEmail());
+                uniquenessIndex.confirm(UniquenessIndex.Key.USER_EMAIL, u.getEmail(), u.getId());
+            });
+        } catch (RuntimeException e) {
+            uniquenessIndex.releaseIfPending(UniquenessIndex.Key.USER_EMAIL, user.getEmail());
+            throw e;
+        }
         return ResponseEntity.ok("User registered successfully");
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> payload) {
+        long waitMs = rateLimitFilter.acquireLogin(payload.get("email"));
+        if (waitMs > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", String.valueOf((waitMs + 999) / 1000))
+                    .body("Too many login attempts for this account");
+        }
         Authentication auth = authManager.authenticate(
                 new UsernamePasswordAuthenticationToken(payload.get("email"), payload.get("password")));
 
@@ -64,4 +92,21 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("token", token));
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("Missing bearer token");
+        }
+        revocationService.revoke(authHeader.substring(7));
+        return ResponseEntity.ok("Logged out successfully");
+    }
+
+    // ✅ Admin can revoke any token, e.g. for a lost device
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(@RequestBody Map<String, String> payload) {
+        revocationService.revoke(payload.get("token"));
+        return ResponseEntity.ok("Token revoked");
+    }
+
 }
\ No newline at end of file
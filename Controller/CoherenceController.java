@@ -0,0 +1,31 @@
+package com.prad.PMS.Controller;
+
+import com.prad.PMS.Service.CacheCoherenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/coherence")
+@RequiredArgsConstructor
+public class CoherenceController {
+
+    private final CacheCoherenceService coherence;
+
+    // ✅ How stale this node's caches and indexes may be - only ADMIN
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("nodeId", coherence.getNodeId());
+        status.put("lastSeenId", coherence.getLastSeenId());
+        status.put("openGaps", coherence.getOpenGaps());
+        status.put("millisSinceLastPoll", coherence.getMillisSinceLastPoll());
+        status.put("lastLagMs", coherence.getLastLagMs());
+        status.put("listeners", coherence.getListenerNames());
+        return status;
+    }
+}
@@ -3,9 +3,13 @@ package com.prad.PMS.Controller;
 import com.prad.PMS.Entity.Doctor;
 import com.prad.PMS.Service.DoctorService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/doctors")
@@ -24,6 +28,16 @@ public class DoctorController {
         return doctorService.getAll();
     }
 
+    // Earliest free slots across every doctor of a specialty, soonest first
+    @GetMapping("/availability")
+    public List<Map<String, Object>> getAvailability(
+            @RequestParam String specialty,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(defaultValue = "30") long duration,
+            @RequestParam(defaultValue = "10") int limit) {
+        return doctorService.findAvailability(specialty, from, Duration.ofMinutes(duration), limit);
+    }
+
     @GetMapping("/{id}")
     public Doctor getDoctor(@PathVariable Long id) {
         return doctorService.getById(id);
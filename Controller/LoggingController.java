@@ -0,0 +1,44 @@
+package com.prad.PMS.Controller;
+
+import com.prad.PMS.Monitoring.LogSampling;
+import com.prad.PMS.Monitoring.RequestLogPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/logging")
+@RequiredArgsConstructor
+public class LoggingController {
+
+    private final RequestLogPipeline pipeline;
+
+    // ✅ Current sample rates and request log health - only ADMIN
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> getLogging() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sqlSampleRate", LogSampling.getSqlRate());
+        status.put("securitySampleRate", LogSampling.getSecurityRate());
+        status.put("requestLogBacklog", pipeline.getBacklog());
+        status.put("requestLogDropped", pipeline.getDropped());
+        return status;
+    }
+
+    // ✅ Change sample rates without a restart, e.g. ?securitySampleRate=0.05 - only ADMIN
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/sampling")
+    public Map<String, Object> updateSampling(@RequestParam(required = false) Double sqlSampleRate,
+                                              @RequestParam(required = false) Double securitySampleRate) {
+        if (sqlSampleRate != null) {
+            LogSampling.setSqlRate(sqlSampleRate);
+        }
+        if (securitySampleRate != null) {
+            LogSampling.setSecurityRate(securitySampleRate);
+        }
+        return getLogging();
+    }
+}
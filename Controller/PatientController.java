@@ -2,8 +2,12 @@ package com.prad.PMS.Controller;
 
 import com.prad.PMS.Entity.Doctor;
 import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Exception.BadRequestException;
 import com.prad.PMS.Exception.ResourceNotFoundException;
+import com.prad.PMS.Projection.ProjectedRows;
+import com.prad.PMS.Service.CensusService;
 import com.prad.PMS.Service.DoctorService;
+import com.prad.PMS.Service.PatientOverviewService;
 import com.prad.PMS.Service.PatientService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -12,14 +16,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -32,6 +39,8 @@ public class PatientController {
 
 
     private final PatientService patientService;
+    private final PatientOverviewService overviewService;
+    private final CensusService censusService;
 
     // ✅ Get all patients - ADMIN or DOCTOR
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
@@ -45,6 +54,36 @@ public class PatientController {
         return patientService.getAll(pageable);
     }
 
+    // ✅ Same page, only the requested columns, e.g. ?fields=id,name,admittedDate
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @GetMapping(params = "fields")
+    public ProjectedRows getAllPatients(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam String fields
+    ) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
+        return patientService.getAll(pageable, fields);
+    }
+
+    // ✅ Daily in-house counts, e.g. ?from=2025-01-01&to=2025-12-31&groupBy=disease - ADMIN or DOCTOR
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @GetMapping("/census")
+    public Map<String, Object> getCensus(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "none") String groupBy
+    ) {
+        CensusService.GroupBy grouping;
+        try {
+            grouping = CensusService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("groupBy must be one of none, disease, doctor");
+        }
+        return censusService.series(from, to, grouping);
+    }
+
     // ✅ Get patient by ID - ADMIN or DOCTOR
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
     @GetMapping("/{id}")
@@ -52,6 +91,13 @@ public class PatientController {
         return patientService.getById(id);
     }
 
+    // ✅ Patient, history, upcoming appointments and doctor in one call - ADMIN or DOCTOR
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @GetMapping("/{id}/overview")
+    public Map<String, Object> getOverview(@PathVariable Long id) throws ResourceNotFoundException {
+        return overviewService.getOverview(id);
+    }
+
     // ✅ Create a new patient - only ADMIN
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
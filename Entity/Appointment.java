@@ -6,6 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, date_time"),
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, date_time"),
+        @Index(name = "idx_appointment_time", columnList = "date_time"),
+        @Index(name = "idx_appointment_status_time", columnList = "status, date_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,40 @@
+package com.prad.PMS.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Cold copy of a finished appointment; keeps plain ids so the hot tables can change freely
+@Entity
+@Table(name = "appointment_archive", indexes = {
+        @Index(name = "idx_archive_patient_time", columnList = "patient_id, date_time"),
+        @Index(name = "idx_archive_time", columnList = "date_time")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime dateTime;
+
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Appointment.Status status;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,33 @@
+package com.prad.PMS.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// One row per write that other nodes must evict from their local caches
+@Entity
+@Table(name = "cache_change_log", indexes = {
+        @Index(name = "idx_cache_change_log_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheChangeLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String cacheName;
+
+    @Column(nullable = false)
+    private String entityKey;
+
+    @Column(nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -7,7 +7,10 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_admitted_date", columnList = "admitted_date"),
+        @Index(name = "idx_patients_discharge_date", columnList = "discharge_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,45 @@
+package com.prad.PMS.Event;
+
+import com.prad.PMS.Entity.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Delta pushed to dashboards instead of the full appointment list
+@Getter
+@AllArgsConstructor
+public class AppointmentEvent {
+
+    private final long id;
+    private final Type type;
+    private final Long appointmentId;
+    private final Long doctorId;
+    private final Long patientId;
+    private final LocalDateTime dateTime;
+    private final Appointment.Status status;
+
+    public enum Type {
+        CREATED,
+        CANCELLED,
+        COMPLETED,
+        RESCHEDULED,
+        RESET // history no longer covers Last-Event-ID, client must reload
+    }
+
+    static AppointmentEvent of(long id, Type type, Appointment appointment) {
+        return new AppointmentEvent(
+                id,
+                type,
+                appointment.getId(),
+                appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getDateTime(),
+                appointment.getStatus()
+        );
+    }
+
+    static AppointmentEvent reset(long id) {
+        return new AppointmentEvent(id, Type.RESET, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,236 @@
+package com.prad.PMS.Event;
+
+import com.prad.PMS.Entity.Appointment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for appointment changes. Keeps a ring of recent events so
+ * reconnecting clients can resume from Last-Event-ID, and gives every SSE
+ * subscriber its own bounded buffer. An idle subscriber holds no thread; a
+ * virtual thread is only started while there is something to send.
+ * In-process listeners are called outside the lock that orders events, one
+ * event at a time and in sequence order; a listener that throws is logged and
+ * never fails the publisher, whose change has already committed.
+ */
+@Slf4j
+@Component
+public class AppointmentEventBus {
+
+    private final AppointmentEvent[] history;
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<AppointmentEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<AppointmentEvent> listenerQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveringToListeners = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private long sequence;
+
+    public AppointmentEventBus(@Value("${pms.events.history-size:1024}") int historySize,
+                               @Value("${pms.events.subscriber-buffer:256}") int bufferSize,
+                               @Value("${pms.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.history = new AppointmentEvent[historySize];
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public void publish(AppointmentEvent.Type type, Appointment appointment) {
+        // Sequencing and fan-out under one lock keeps per-subscriber order equal to id order
+        synchronized (history) {
+            AppointmentEvent event = AppointmentEvent.of(++sequence, type, appointment);
+            history[(int) (sequence % history.length)] = event;
+            if (!listeners.isEmpty()) {
+                listenerQueue.add(event); // queued under the lock, so queue order is sequence order
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event)) {
+                    subscriber.offer(event);
+                }
+            }
+        }
+        deliverToListeners();
+    }
+
+    // In-process listeners (indexes) see every event in order, on some publishing thread; keep them cheap
+    public void addListener(Consumer<AppointmentEvent> listener) {
+        listeners.add(listener);
+    }
+
+    // Whichever publisher finds the queue unattended delivers all of it, so only one thread calls listeners at a time
+    private void deliverToListeners() {
+        while (!listenerQueue.isEmpty() && deliveringToListeners.compareAndSet(false, true)) {
+            try {
+                AppointmentEvent event;
+                while ((event = listenerQueue.poll()) != null) {
+                    for (Consumer<AppointmentEvent> listener : listeners) {
+                        try {
+                            listener.accept(event);
+                        } catch (RuntimeException e) {
+                            log.error("Appointment event listener failed on event {}", event.getId(), e);
+                        }
+                    }
+                }
+            } finally {
+                deliveringToListeners.set(false);
+            }
+        }
+    }
+
+    // Inside a transaction the events go out only once it has committed
+    public void publishAfterCommit(AppointmentEvent.Type type, List<Appointment> appointments) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appointments.forEach(a -> publish(type, a));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                appointments.forEach(a -> publish(type, a));
+            }
+        });
+    }
+
+    public SseEmitter subscribe(Long doctorId, LocalDate date, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, doctorId, date);
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        synchronized (history) {
+            if (lastEventId != null && lastEventId != sequence) {
+                replay(subscriber, lastEventId);
+            }
+            // The replay may already have closed it; close() only removes what was added before it ran
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+                if (subscriber.closed) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        long oldest = Math.max(1, sequence - history.length + 1);
+        // An id ahead of ours comes from before a restart or from another node, and means nothing here
+        if (lastEventId > sequence || lastEventId + 1 < oldest) {
+            subscriber.offer(AppointmentEvent.reset(sequence));
+            return;
+        }
+        List<AppointmentEvent> missed = new ArrayList<>();
+        for (long id = lastEventId + 1; id <= sequence; id++) {
+            AppointmentEvent event = history[(int) (id % history.length)];
+            if (subscriber.accepts(event)) {
+                missed.add(event);
+            }
+        }
+        // More than the buffer holds would overflow it and drop the client, which reconnects into the same gap
+        if (missed.size() > bufferSize) {
+            subscriber.offer(AppointmentEvent.reset(sequence));
+            return;
+        }
+        missed.forEach(subscriber::offer);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(s -> s.emitter.complete());
+        dispatcher.shutdown();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long doctorId;
+        private final LocalDate date;
+        private final BlockingQueue<AppointmentEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Long doctorId, LocalDate date) {
+            this.emitter = emitter;
+            this.doctorId = doctorId;
+            this.date = date;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean accepts(AppointmentEvent event) {
+            if (event.getType() == AppointmentEvent.Type.RESET) {
+                return true;
+            }
+            if (doctorId != null && !doctorId.equals(event.getDoctorId())) {
+                return false;
+            }
+            return date == null || (event.getDateTime() != null && date.equals(event.getDateTime().toLocalDate()));
+        }
+
+        void offer(AppointmentEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // Slow consumer: cut it loose, it can resume from its last event id
+                close();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    AppointmentEvent event;
+                    while ((event = buffer.poll()) != null) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.getId()))
+                                .name(event.getType().name())
+                                .data(event));
+                    }
+                    draining.set(false);
+                } while (!buffer.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+        }
+    }
+}
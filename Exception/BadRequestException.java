@@ -0,0 +1,8 @@
+package com.prad.PMS.Exception;
+
+// Invalid client input (unknown ?fields=, bad ranges); the only exception mapped to 400
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.prad.PMS.Exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.prad.PMS.Monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how often the same kind of error is written to the log, so a failing
+ * dependency cannot turn every request into a stack trace. Per key, the first
+ * N occurrences in each window are logged; the rest are only counted and the
+ * count is reported with the next logged occurrence.
+ */
+@Component
+public class ErrorLogLimiter {
+
+    private static final int MAX_KEYS = 1000;
+
+    private final int perWindow;
+    private final long windowMs;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public ErrorLogLimiter(@Value("${pms.logging.errors.per-window:10}") int perWindow,
+                           @Value("${pms.logging.errors.window-ms:60000}") long windowMs) {
+        this.perWindow = perWindow;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * @return -1 if this occurrence should not be logged, otherwise the number
+     * of occurrences suppressed since the last one that was
+     */
+    public int tryLog(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= MAX_KEYS) {
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+        return window.tryLog(System.currentTimeMillis());
+    }
+
+    private final class Window {
+        private final AtomicLong start = new AtomicLong();
+        private final AtomicInteger logged = new AtomicInteger();
+        private final AtomicInteger suppressed = new AtomicInteger();
+
+        int tryLog(long now) {
+            long begun = start.get();
+            if (now - begun >= windowMs && start.compareAndSet(begun, now)) {
+                logged.set(0);
+            }
+            if (logged.incrementAndGet() > perWindow) {
+                suppressed.incrementAndGet();
+                return -1;
+            }
+            return suppressed.getAndSet(0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.prad.PMS.Monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Upper bounds per endpoint, keyed by "METHOD /pattern", e.g.
+ * pms.guardrails.limits[GET /api/patients/{id}].max-statements=2
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pms.guardrails")
+public class GuardrailProperties {
+
+    private boolean enabled;
+
+    // LOG only warns; FAIL replaces the response with a 500 carrying the report (for tests and CI)
+    private Mode mode = Mode.LOG;
+
+    private Map<String, Limit> limits = new HashMap<>();
+
+    public enum Mode {
+        LOG,
+        FAIL
+    }
+
+    @Data
+    public static class Limit {
+        private Integer maxStatements;
+        private Long maxAllocatedBytes;
+    }
+}
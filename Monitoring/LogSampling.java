@@ -0,0 +1,69 @@
+package com.prad.PMS.Monitoring;
+
+import com.prad.PMS.Exception.BadRequestException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-request decision whether to emit SQL text and Spring Security debug
+ * traces. Decided once when the request starts so a sampled request is traced
+ * end to end; SampledTraceFilter reads the decision from inside Logback, which
+ * is why the state here is static rather than a bean. Rates can be changed at
+ * runtime through LoggingController.
+ */
+public final class LogSampling {
+
+    public static final int SQL = 1;
+    public static final int SECURITY = 2;
+
+    // Inheritable so statements run on forked virtual threads follow their request
+    private static final InheritableThreadLocal<Integer> TRACES = new InheritableThreadLocal<>();
+
+    private static volatile double sqlRate;
+    private static volatile double securityRate;
+
+    private LogSampling() {
+    }
+
+    static int begin() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int traces = (random.nextDouble() < sqlRate ? SQL : 0)
+                | (random.nextDouble() < securityRate ? SECURITY : 0);
+        if (traces != 0) {
+            TRACES.set(traces); // small Integers are cached, nothing allocated per request
+        }
+        return traces;
+    }
+
+    static void end() {
+        TRACES.remove();
+    }
+
+    static boolean isTraced(int kind) {
+        Integer traces = TRACES.get();
+        return traces != null && (traces & kind) != 0;
+    }
+
+    public static double getSqlRate() {
+        return sqlRate;
+    }
+
+    public static void setSqlRate(double rate) {
+        sqlRate = checkRate(rate);
+    }
+
+    public static double getSecurityRate() {
+        return securityRate;
+    }
+
+    public static void setSecurityRate(double rate) {
+        securityRate = checkRate(rate);
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new BadRequestException("Sample rate must be between 0 and 1");
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,129 @@
+package com.prad.PMS.Monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures every request (security filters included) and checks it against
+ * the configured GuardrailProperties limits. The measurements are left on the
+ * request under RequestMetrics.REQUEST_ATTRIBUTE and exposed as X-Query-Count /
+ * X-Allocated-Bytes headers, so MockMvc tests can assert on them directly.
+ *
+ * Allocation limits need requests, and the tasks they fork (patient overview
+ * sections), served on platform threads. With virtual threads on they cannot
+ * be checked: FAIL mode refuses to start and LOG mode
+ * warns once. The guardrails profile and scripts/guardrail-check.sh run the
+ * application the way the limits expect.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "pms.guardrails.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RequestGuardrailFilter extends OncePerRequestFilter {
+
+    private final GuardrailProperties properties;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void checkAllocationLimits() {
+        boolean allocationLimits = properties.getLimits().values().stream()
+                .anyMatch(limit -> limit.getMaxAllocatedBytes() != null);
+        if (!allocationLimits || !virtualThreads) {
+            return;
+        }
+        String message = "max-allocated-bytes limits are configured, but spring.threads.virtual.enabled=true "
+                + "and the JVM does not measure allocation on virtual threads; run the guardrails with "
+                + "spring.threads.virtual.enabled=false (see the guardrails profile)";
+        if (properties.getMode() == GuardrailProperties.Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn("{}; allocation limits are not checked", message);
+    }
+
+    // Long-lived SSE streams are neither bufferable nor meaningful to bound
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        boolean failMode = properties.getMode() == GuardrailProperties.Mode.FAIL;
+        // Headers must be set before the body is committed, so the body is buffered in FAIL mode
+        ContentCachingResponseWrapper wrapper = failMode ? new ContentCachingResponseWrapper(response) : null;
+
+        RequestMetrics metrics = RequestMetrics.start();
+        try {
+            chain.doFilter(request, failMode ? wrapper : response);
+        } finally {
+            metrics.stop();
+        }
+        request.setAttribute(RequestMetrics.REQUEST_ATTRIBUTE, metrics);
+
+        String route = route(request);
+        String violation = violation(route, metrics);
+        if (violation != null) {
+            log.warn("Guardrail exceeded, {}\n{}", violation, metrics.report(route));
+        }
+
+        if (!failMode) {
+            return;
+        }
+        wrapper.setHeader("X-Query-Count", String.valueOf(metrics.getStatementCount()));
+        wrapper.setHeader("X-Allocated-Bytes", String.valueOf(metrics.getAllocatedBytes()));
+        if (violation != null) {
+            wrapper.resetBuffer();
+            wrapper.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            wrapper.setContentType("text/plain");
+            wrapper.getOutputStream().write((violation + "\n" + metrics.report(route)).getBytes(StandardCharsets.UTF_8));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private String violation(String route, RequestMetrics metrics) {
+        GuardrailProperties.Limit limit = properties.getLimits().get(route);
+        if (limit == null) {
+            return null;
+        }
+        if (limit.getMaxStatements() != null && metrics.getStatementCount() > limit.getMaxStatements()) {
+            return metrics.getStatementCount() + " statements, limit " + limit.getMaxStatements();
+        }
+        if (limit.getMaxAllocatedBytes() != null && metrics.getAllocatedBytes() < 0
+                && properties.getMode() == GuardrailProperties.Mode.FAIL) {
+            // An unmeasured request must not pass as within bounds
+            return "allocated bytes could not be measured on this thread or a task it forked, limit "
+                    + limit.getMaxAllocatedBytes();
+        }
+        if (limit.getMaxAllocatedBytes() != null && metrics.getAllocatedBytes() > limit.getMaxAllocatedBytes()) {
+            return metrics.getAllocatedBytes() + " bytes allocated, limit " + limit.getMaxAllocatedBytes();
+        }
+        return null;
+    }
+
+    // "GET /api/patients/{id}" once MVC has matched the handler, raw URI otherwise
+    static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -0,0 +1,56 @@
+package com.prad.PMS.Monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Feeds RequestLogPipeline: route, principal, status, statement count and
+ * latency for every request, and makes the SQL / security trace sampling
+ * decision before the security chain runs. Sits inside RequestGuardrailFilter
+ * and shares its RequestMetrics when guardrails are on.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "pms.logging.requests.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    // Set by RateLimitFilter once JwtFilter has authenticated the request; the security context is gone by the time we log
+    public static final String PRINCIPAL_ATTRIBUTE = "pms.principal";
+
+    private final RequestLogPipeline pipeline;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        RequestMetrics outer = RequestMetrics.current();
+        RequestMetrics metrics = outer != null ? outer : RequestMetrics.start();
+        int traces = LogSampling.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LogSampling.end();
+            if (outer == null) {
+                metrics.stop();
+            }
+            pipeline.record(RequestGuardrailFilter.route(request),
+                    (String) request.getAttribute(PRINCIPAL_ATTRIBUTE),
+                    response.getStatus(),
+                    metrics.getStatementCount(),
+                    System.nanoTime() - start,
+                    traces);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.prad.PMS.Monitoring;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One structured line per request, written off the request thread. Request
+ * threads copy a handful of fields into a preallocated ring slot (no event
+ * object, no formatting) and return; a single writer thread formats into a
+ * reused buffer and hands the line to the "pms.requests" logger, which
+ * logback-spring.xml routes through a non-blocking async appender. When the
+ * writer falls behind, events are dropped and counted instead of blocking.
+ */
+@Component
+public class RequestLogPipeline {
+
+    private static final Logger REQUESTS = LoggerFactory.getLogger("pms.requests");
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    private volatile long consumed;
+    private volatile boolean running = true;
+
+    public RequestLogPipeline(@Value("${pms.logging.ring-size:8192}") int ringSize,
+                              @Value("${pms.logging.sql-sample-rate:0.01}") double sqlSampleRate,
+                              @Value("${pms.logging.security-sample-rate:0}") double securitySampleRate) {
+        int size = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = size - 1;
+        LogSampling.setSqlRate(sqlSampleRate);
+        LogSampling.setSecurityRate(securitySampleRate);
+
+        this.writer = new Thread(this::drain, "request-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(String route, String principal, int status, int statements,
+                       long latencyNanos, int traces) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        Slot slot = ring[(int) (seq & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.route = route;
+        slot.principal = principal;
+        slot.status = status;
+        slot.statements = statements;
+        slot.latencyMicros = latencyNanos / 1000;
+        slot.traces = traces;
+        slot.sequence = seq; // publishes the fields above to the writer
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        long next = 0;
+        while (running) {
+            Slot slot = ring[(int) (next & mask)];
+            if (slot.sequence != next) {
+                LockSupport.parkNanos(1_000_000);
+                continue;
+            }
+            line.setLength(0);
+            format(slot, line);
+            slot.route = null;
+            slot.principal = null;
+            consumed = ++next; // slot may be reused from here on
+            REQUESTS.info(line.toString());
+        }
+    }
+
+    private static void format(Slot slot, StringBuilder out) {
+        out.append("{\"ts\":").append(slot.timestamp);
+        out.append(",\"route\":");
+        appendQuoted(out, slot.route);
+        out.append(",\"principal\":");
+        appendQuoted(out, slot.principal);
+        out.append(",\"status\":").append(slot.status);
+        out.append(",\"sql\":").append(slot.statements);
+        out.append(",\"latencyMs\":").append(slot.latencyMicros / 1000)
+                .append('.').append((slot.latencyMicros % 1000) / 100);
+        if (slot.traces != 0) {
+            out.append(",\"traced\":\"")
+                    .append((slot.traces & LogSampling.SQL) != 0 ? "sql" : "")
+                    .append(slot.traces == (LogSampling.SQL | LogSampling.SECURITY) ? "," : "")
+                    .append((slot.traces & LogSampling.SECURITY) != 0 ? "security" : "")
+                    .append('"');
+        }
+        out.append('}');
+    }
+
+    private static void appendQuoted(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getBacklog() {
+        return claimed.get() - consumed;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(1000);
+    }
+
+    private static final class Slot {
+        volatile long sequence = -1;
+        long timestamp;
+        String route;
+        String principal;
+        int status;
+        int statements;
+        long latencyMicros;
+        int traces;
+    }
+}
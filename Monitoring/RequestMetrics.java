@@ -0,0 +1,151 @@
+package com.prad.PMS.Monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements and allocated bytes for the request running on this thread.
+ * Inheritable, so section lookups forked onto other threads (patient
+ * overview) are counted against the request that started them. Allocation
+ * is measured on the request thread and on tasks wrapped with forked(), and
+ * only on platform threads: the JVM keeps no allocation counter for virtual
+ * threads, so a single unmeasured thread makes the total unknown (-1).
+ */
+public final class RequestMetrics {
+
+    public static final String REQUEST_ATTRIBUTE = "pms.requestMetrics";
+
+    private static final int MAX_RECORDED_SQL = 50;
+    private static final InheritableThreadLocal<RequestMetrics> CURRENT = new InheritableThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final Queue<String> statements = new ConcurrentLinkedQueue<>();
+    private final Queue<CapturedStatement> captured; // null unless started with startCapturing()
+    private final long startAllocated;
+    private final AtomicLong forkedAllocated = new AtomicLong();
+    private volatile boolean forkedUnmeasured;
+    private long allocatedBytes = -1;
+
+    private RequestMetrics(boolean capture) {
+        this.captured = capture ? new ConcurrentLinkedQueue<>() : null;
+        this.startAllocated = currentThreadAllocated();
+    }
+
+    public static RequestMetrics start() {
+        RequestMetrics metrics = new RequestMetrics(false);
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    // Also keeps every statement with its bound parameters, unbounded; for QueryPlanCheck, not for requests
+    public static RequestMetrics startCapturing() {
+        RequestMetrics metrics = new RequestMetrics(true);
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    // Ends the recording on this thread and fixes the allocation figure; forked tasks still running are left out
+    public RequestMetrics stop() {
+        long end = currentThreadAllocated();
+        allocatedBytes = (startAllocated < 0 || end < 0 || forkedUnmeasured)
+                ? -1 : end - startAllocated + forkedAllocated.get();
+        CURRENT.remove();
+        return this;
+    }
+
+    // Wraps a task the current request hands to another thread, so its allocation is added to the request's
+    public static <T> Callable<T> forked(Callable<T> task) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return task;
+        }
+        return () -> {
+            long start = currentThreadAllocated();
+            try {
+                return task.call();
+            } finally {
+                long end = currentThreadAllocated();
+                if (start < 0 || end < 0) {
+                    metrics.forkedUnmeasured = true;
+                } else {
+                    metrics.forkedAllocated.addAndGet(end - start);
+                }
+            }
+        };
+    }
+
+    static void recordStatement(String sql) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null && metrics.statementCount.incrementAndGet() <= MAX_RECORDED_SQL) {
+            metrics.statements.add(sql);
+        }
+    }
+
+    static void recordCaptured(String sql, List<Object> parameters) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null && metrics.captured != null && sql != null) {
+            metrics.captured.add(new CapturedStatement(sql, parameters));
+        }
+    }
+
+    static boolean isCapturing() {
+        RequestMetrics metrics = CURRENT.get();
+        return metrics != null && metrics.captured != null;
+    }
+
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    public List<String> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    public List<CapturedStatement> getCaptured() {
+        return captured == null ? List.of() : new ArrayList<>(captured);
+    }
+
+    // -1 when the JVM cannot measure it for this thread or a forked task (e.g. virtual threads)
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public String report(String route) {
+        StringBuilder sb = new StringBuilder(route)
+                .append(": ").append(getStatementCount()).append(" statements, ")
+                .append(allocatedBytes < 0 ? "allocation n/a" : allocatedBytes + " bytes allocated");
+        int i = 1;
+        for (String sql : statements) {
+            sb.append("\n  ").append(i++).append(". ").append(sql);
+        }
+        if (getStatementCount() > MAX_RECORDED_SQL) {
+            sb.append("\n  ... ").append(getStatementCount() - MAX_RECORDED_SQL).append(" more");
+        }
+        return sb.toString();
+    }
+
+    // False on virtual threads and on JVMs without per-thread allocation accounting
+    public static boolean isAllocationMeasurable() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled()
+                && !Thread.currentThread().isVirtual();
+    }
+
+    public record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    private static long currentThreadAllocated() {
+        return isAllocationMeasurable() ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
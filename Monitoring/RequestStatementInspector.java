@@ -0,0 +1,31 @@
+package com.prad.PMS.Monitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counts the SQL Hibernate prepares against the current RequestMetrics, for
+ * guardrails and the request log. Hibernate calls it once per statement it
+ * prepares, so it costs a thread-local lookup and nothing else. Statements
+ * sent through JdbcTemplate bypass Hibernate and are not counted.
+ */
+@Component
+@ConditionalOnExpression("${pms.guardrails.enabled:false} or ${pms.logging.requests.enabled:true}")
+public class RequestStatementInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    @Override
+    public String inspect(String sql) {
+        RequestMetrics.recordStatement(sql);
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+}
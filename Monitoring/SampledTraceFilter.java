@@ -0,0 +1,34 @@
+package com.prad.PMS.Monitoring;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * Lets DEBUG output from Hibernate's SQL logger and Spring Security through
+ * for sampled requests only, while those loggers stay at INFO for everyone
+ * else. Registered in logback-spring.xml; runs before the level check, so it
+ * only compares a logger name prefix on the fast path.
+ */
+public class SampledTraceFilter extends TurboFilter {
+
+    private static final String SQL_LOGGER = "org.hibernate.SQL";
+    private static final String SECURITY_PREFIX = "org.springframework.security";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level.levelInt >= Level.INFO_INT) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (name.startsWith(SQL_LOGGER)) {
+            return LogSampling.isTraced(LogSampling.SQL) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+        }
+        if (name.startsWith(SECURITY_PREFIX)) {
+            return LogSampling.isTraced(LogSampling.SECURITY) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
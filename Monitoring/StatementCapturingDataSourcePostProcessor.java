@@ -0,0 +1,100 @@
+package com.prad.PMS.Monitoring;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wraps the DataSource so executed statements are kept with their bound
+ * parameters while RequestMetrics is capturing, for QueryPlanCheck to EXPLAIN.
+ * Profile plan-check only: the proxies cost a reflective call per JDBC method.
+ * Statement counts for guardrails and the request log come from
+ * RequestStatementInspector instead.
+ */
+@Component
+@Profile("plan-check")
+public class StatementCapturingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection c ? proxy(Connection.class, c, connectionHandler()) : result;
+            });
+        }
+        return bean;
+    }
+
+    private static Handler connectionHandler() {
+        return (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String name = method.getName();
+            if (!RequestMetrics.isCapturing()) {
+                return result;
+            }
+            if (result instanceof CallableStatement cs && "prepareCall".equals(name)) {
+                return proxy(CallableStatement.class, cs, statementHandler((String) args[0]));
+            }
+            if (result instanceof PreparedStatement ps && "prepareStatement".equals(name)) {
+                return proxy(PreparedStatement.class, ps, statementHandler((String) args[0]));
+            }
+            if (result instanceof Statement s && "createStatement".equals(name)) {
+                return proxy(Statement.class, s, statementHandler(null));
+            }
+            return result;
+        };
+    }
+
+    private static Handler statementHandler(String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                RequestMetrics.recordCaptured(sql, new ArrayList<>(parameters.values()));
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            }
+            return invoke(target, method, args);
+        };
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler h = (p, method, args) -> {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return invoke(target, method, args);
+            }
+            return handler.handle(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, h);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
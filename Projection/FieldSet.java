@@ -0,0 +1,98 @@
+package com.prad.PMS.Projection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.prad.PMS.Exception.BadRequestException;
+import jakarta.persistence.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A validated ?fields= selection compiled into its JPQL select/join clauses
+ * and a row writer with pre-encoded JSON names and per-field value writers.
+ */
+public final class FieldSet {
+
+    private final ProjectionSchema schema;
+    private final ProjectionSchema.Field[] fields;
+    private final SerializedString[] names;
+    private final String selectClause;
+    private final String joinClause;
+
+    private FieldSet(ProjectionSchema schema, List<ProjectionSchema.Field> fields) {
+        this.schema = schema;
+        this.fields = fields.toArray(new ProjectionSchema.Field[0]);
+        this.names = fields.stream().map(f -> new SerializedString(f.name())).toArray(SerializedString[]::new);
+        this.selectClause = String.join(", ", fields.stream().map(ProjectionSchema.Field::path).toList());
+
+        Set<String> joins = new LinkedHashSet<>();
+        fields.stream().map(ProjectionSchema.Field::join).filter(j -> j != null).forEach(joins::add);
+        this.joinClause = String.join(" ", joins);
+    }
+
+    static FieldSet compile(ProjectionSchema schema, String requested) {
+        Set<String> seen = new LinkedHashSet<>();
+        List<ProjectionSchema.Field> fields = new ArrayList<>();
+        for (String name : requested.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && seen.add(trimmed)) {
+                fields.add(schema.field(trimmed));
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new BadRequestException("fields must name at least one field");
+        }
+        return new FieldSet(schema, fields);
+    }
+
+    public ProjectionSchema getSchema() {
+        return schema;
+    }
+
+    // "select e.id, d.name from Patient e left join e.doctor d"
+    public String selectFrom() {
+        return "select " + selectClause + " from " + schema.getEntityName() + " e"
+                + (joinClause.isEmpty() ? "" : " " + joinClause);
+    }
+
+    public boolean hasJoin(String join) {
+        return join == null || joinClause.contains(join);
+    }
+
+    public String fromForCount() {
+        return "select count(e) from " + schema.getEntityName() + " e";
+    }
+
+    void writeRows(List<Tuple> rows, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray();
+        for (Tuple row : rows) {
+            gen.writeStartObject();
+            for (int i = 0; i < fields.length; i++) {
+                gen.writeFieldName(names[i]);
+                writeValue(fields[i].kind(), row.get(i), gen, provider);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeValue(ProjectionSchema.Kind kind, Object value, JsonGenerator gen,
+                                   SerializerProvider provider) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        switch (kind) {
+            case STRING -> gen.writeString((String) value);
+            case LONG -> gen.writeNumber((Long) value);
+            case INT -> gen.writeNumber((Integer) value);
+            case BOOLEAN -> gen.writeBoolean((Boolean) value);
+            default -> provider.defaultSerializeValue(value, gen); // dates and enums keep the app's Jackson config
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.prad.PMS.Projection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import jakarta.persistence.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a sparse-fieldset query. Serialises itself with the FieldSet's
+ * writer: a plain array for lists, or a page object when paging info is set.
+ */
+public class ProjectedRows implements JsonSerializable {
+
+    private final FieldSet fieldSet;
+    private final List<Tuple> rows;
+    private final PageInfo page;
+
+    public record PageInfo(int number, int size, long totalElements) {
+        int totalPages() {
+            return size == 0 ? 1 : (int) ((totalElements + size - 1) / size);
+        }
+    }
+
+    public ProjectedRows(FieldSet fieldSet, List<Tuple> rows, PageInfo page) {
+        this.fieldSet = fieldSet;
+        this.rows = rows;
+        this.page = page;
+    }
+
+    // Rows of another result with the same field list, e.g. archived appointments after the hot ones
+    public ProjectedRows append(ProjectedRows more) {
+        List<Tuple> combined = new ArrayList<>(rows.size() + more.rows.size());
+        combined.addAll(rows);
+        combined.addAll(more.rows);
+        return new ProjectedRows(fieldSet, combined, null);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (page == null) {
+            fieldSet.writeRows(rows, gen, provider);
+            return;
+        }
+        gen.writeStartObject();
+        gen.writeFieldName("content");
+        fieldSet.writeRows(rows, gen, provider);
+        gen.writeNumberField("number", page.number());
+        gen.writeNumberField("size", page.size());
+        gen.writeNumberField("totalElements", page.totalElements());
+        gen.writeNumberField("totalPages", page.totalPages());
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, provider);
+    }
+}
@@ -0,0 +1,113 @@
+package com.prad.PMS.Projection;
+
+import com.prad.PMS.Exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fields a client may request with ?fields= for each entity, and the JPQL
+ * path each one maps to. Anything not listed here is rejected, so the
+ * parameter can never be used to reach arbitrary columns.
+ */
+public enum ProjectionSchema {
+
+    PATIENT("Patient",
+            field("id", "e.id", Kind.LONG),
+            field("name", "e.name", Kind.STRING),
+            field("age", "e.age", Kind.INT),
+            field("gender", "e.gender", Kind.STRING),
+            field("disease", "e.disease", Kind.STRING),
+            field("doctorAssigned", "e.doctorAssigned", Kind.STRING),
+            field("admittedDate", "e.admittedDate", Kind.OTHER),
+            field("dischargeDate", "e.dischargeDate", Kind.OTHER),
+            field("email", "e.email", Kind.STRING),
+            field("phone", "e.phone", Kind.STRING),
+            field("admitted", "e.admitted", Kind.BOOLEAN),
+            field("address", "e.address", Kind.STRING),
+            field("doctorId", "e.doctor.id", Kind.LONG),
+            joined("doctorName", "d.name", Kind.STRING, "left join e.doctor d")),
+
+    APPOINTMENT("Appointment",
+            field("id", "e.id", Kind.LONG),
+            field("dateTime", "e.dateTime", Kind.OTHER),
+            field("reason", "e.reason", Kind.STRING),
+            field("status", "e.status", Kind.OTHER),
+            field("patientId", "e.patient.id", Kind.LONG),
+            joined("patientName", "p.name", Kind.STRING, "left join e.patient p"),
+            field("doctorId", "e.doctor.id", Kind.LONG),
+            joined("doctorName", "d.name", Kind.STRING, "left join e.doctor d"),
+            joined("doctorSpecialty", "d.specialty", Kind.STRING, "left join e.doctor d")),
+
+    // Same field names and order as APPOINTMENT, so archived rows can be appended to its results
+    ARCHIVED_APPOINTMENT("ArchivedAppointment",
+            field("id", "e.id", Kind.LONG),
+            field("dateTime", "e.dateTime", Kind.OTHER),
+            field("reason", "e.reason", Kind.STRING),
+            field("status", "e.status", Kind.OTHER),
+            field("patientId", "e.patientId", Kind.LONG),
+            joined("patientName", "p.name", Kind.STRING, "left join Patient p on p.id = e.patientId"),
+            field("doctorId", "e.doctorId", Kind.LONG),
+            joined("doctorName", "d.name", Kind.STRING, "left join Doctor d on d.id = e.doctorId"),
+            joined("doctorSpecialty", "d.specialty", Kind.STRING, "left join Doctor d on d.id = e.doctorId"));
+
+    public enum Kind {
+        STRING,
+        LONG,
+        INT,
+        BOOLEAN,
+        OTHER
+    }
+
+    public record Field(String name, String path, Kind kind, String join) {
+    }
+
+    private static final int MAX_CACHED_FIELD_SETS = 256;
+
+    private final String entityName;
+    private final Map<String, Field> fields;
+    private final Map<String, FieldSet> cache = new ConcurrentHashMap<>();
+
+    ProjectionSchema(String entityName, Field... fields) {
+        this.entityName = entityName;
+        this.fields = Arrays.stream(fields)
+                .collect(Collectors.toMap(Field::name, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Field field(String name) {
+        Field field = fields.get(name);
+        if (field == null) {
+            throw new BadRequestException("Unknown field '" + name + "', allowed: " + fields.keySet());
+        }
+        return field;
+    }
+
+    // Same field list, same compiled FieldSet: the JPQL and JSON writer are built once per combination
+    public FieldSet fieldSet(String requested) {
+        FieldSet cached = cache.get(requested);
+        if (cached != null) {
+            return cached;
+        }
+        FieldSet compiled = FieldSet.compile(this, requested);
+        if (cache.size() < MAX_CACHED_FIELD_SETS) {
+            cache.putIfAbsent(requested, compiled);
+        }
+        return compiled;
+    }
+
+    private static Field field(String name, String path, Kind kind) {
+        return new Field(name, path, kind, null);
+    }
+
+    private static Field joined(String name, String path, Kind kind, String join) {
+        return new Field(name, path, kind, join);
+    }
+}
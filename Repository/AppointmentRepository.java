@@ -1,13 +1,81 @@
 package com.prad.PMS.Repository;
 
 import com.prad.PMS.Entity.Appointment;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
     List<Appointment> findByDoctorId(Long doctorId);
     List<Appointment> findByPatientId(Long patientId);
     List<Appointment> findByDateTimeBetween(LocalDateTime start, LocalDateTime end);
+    List<Appointment> findByPatientIdAndDateTimeBeforeOrderByDateTimeDesc(Long patientId, LocalDateTime before);
+    List<Appointment> findByPatientIdAndStatusAndDateTimeGreaterThanEqualOrderByDateTimeAsc(
+            Long patientId, Appointment.Status status, LocalDateTime from);
+
+    // Bulk transitions: lock the target rows to learn their ids, then change them with one UPDATE
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Appointment a where a.doctor.id = :doctorId and a.status = :status " +
+            "and a.dateTime >= :start and a.dateTime < :end")
+    List<Long> lockIdsByDoctorAndRange(@Param("doctorId") Long doctorId,
+                                       @Param("status") Appointment.Status status,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end);
+
+    // id and start of one doctor's bookings in [start, end); the index range is locked too, so nothing can be
+    // booked into it or moved out of it until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id, a.dateTime from Appointment a where a.doctor.id = :doctorId and a.status = :status " +
+            "and a.dateTime >= :start and a.dateTime < :end")
+    List<Object[]> lockOccupiedByDoctorAndRange(@Param("doctorId") Long doctorId,
+                                                @Param("status") Appointment.Status status,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
+
+    // Keyset batch for sweeps that may touch an unbounded number of rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Appointment a where a.status = :status and a.dateTime < :before " +
+            "and a.id > :afterId order by a.id")
+    List<Long> lockIdsByStatusBefore(@Param("status") Appointment.Status status,
+                                     @Param("before") LocalDateTime before,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Appointment a set a.status = :status where a.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Appointment.Status status);
+
+    // Native because JPQL has no portable datetime + interval
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "update appointment set date_time = date_add(date_time, interval :minutes minute) " +
+            "where id in (:ids)", nativeQuery = true)
+    int shiftDateTime(@Param("ids") Collection<Long> ids, @Param("minutes") long minutes);
+
+    // id, doctor id and start of every booking from a point on, for the availability index
+    @Query("select a.id, a.doctor.id, a.dateTime from Appointment a where a.status = :status and a.dateTime >= :from")
+    List<Object[]> findOccupiedFrom(@Param("status") Appointment.Status status, @Param("from") LocalDateTime from);
+
+    // id and start of one doctor's bookings, when another node changed them
+    @Query("select a.id, a.dateTime from Appointment a where a.doctor.id = :doctorId and a.status = :status " +
+            "and a.dateTime >= :from")
+    List<Object[]> findOccupiedByDoctorFrom(@Param("doctorId") Long doctorId,
+                                            @Param("status") Appointment.Status status,
+                                            @Param("from") LocalDateTime from);
+
+    // Keyset scan over finished appointments, used by the archiver
+    @Query("select a.id from Appointment a where a.status in :statuses and a.dateTime < :cutoff " +
+            "and a.id > :afterId order by a.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<Appointment.Status> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
 }
@@ -0,0 +1,23 @@
+package com.prad.PMS.Repository;
+
+import com.prad.PMS.Entity.ArchivedAppointment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+    List<ArchivedAppointment> findByPatientIdOrderByDateTimeDesc(Long patientId);
+    List<ArchivedAppointment> findByDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    // Copies a batch for the archiver in one statement; nothing is loaded into the persistence context
+    @Modifying
+    @Query(value = "insert into appointment_archive (id, date_time, reason, status, patient_id, doctor_id, archived_at) " +
+            "select id, date_time, reason, status, patient_id, doctor_id, :archivedAt from appointment " +
+            "where id in (:ids)", nativeQuery = true)
+    int copyFromAppointments(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -0,0 +1,27 @@
+package com.prad.PMS.Repository;
+
+import com.prad.PMS.Entity.CacheChangeLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CacheChangeLogRepository extends JpaRepository<CacheChangeLog, Long> {
+
+    // Primary-key range scan, cheap enough to run every few hundred ms
+    @Query("select c from CacheChangeLog c where c.id > :afterId order by c.id")
+    List<CacheChangeLog> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select coalesce(max(c.id), 0) from CacheChangeLog c")
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from CacheChangeLog c where c.createdAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -3,5 +3,9 @@ package com.prad.PMS.Repository;
 import com.prad.PMS.Entity.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    // Assigned doctor without loading the patient first
+    Optional<Doctor> findByPatients_Id(Long patientId);
 }
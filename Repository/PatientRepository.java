@@ -5,10 +5,13 @@ package com.prad.PMS.Repository;
 import com.prad.PMS.Entity.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -16,6 +19,21 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     Page<Patient> findAll(Pageable pageable);
     List<Patient> findByDiseaseContainingIgnoreCase(String disease);
 
+    @Query("select p.id, p.email, p.phone from Patient p")
+    List<Object[]> findAllIdEmailAndPhone();
+
+    // Stays touching [start, end): id, admittedDate, dischargeDate, admitted, disease, doctor id
+    @Query("select p.id, p.admittedDate, p.dischargeDate, p.admitted, p.disease, d.id " +
+            "from Patient p left join p.doctor d " +
+            "where p.admittedDate is not null and p.admittedDate < :end " +
+            "and (p.dischargeDate is null or p.dischargeDate >= :start)")
+    List<Object[]> findStaysOverlapping(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // Same row layout for one patient, when another node changed them
+    @Query("select p.id, p.admittedDate, p.dischargeDate, p.admitted, p.disease, d.id " +
+            "from Patient p left join p.doctor d where p.id = :id")
+    List<Object[]> findStayById(@Param("id") Long id);
+
 
 }
 
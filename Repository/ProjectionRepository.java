@@ -0,0 +1,72 @@
+package com.prad.PMS.Repository;
+
+import com.prad.PMS.Exception.BadRequestException;
+import com.prad.PMS.Projection.FieldSet;
+import com.prad.PMS.Projection.ProjectedRows;
+import com.prad.PMS.Projection.ProjectionSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+// Tuple queries that select only the columns named by a FieldSet
+@Repository
+public class ProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProjectedRows findAll(FieldSet fieldSet, String where, Map<String, Object> params, Sort sort) {
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                fieldSet.selectFrom() + whereClause(where) + orderBy(fieldSet, sort), Tuple.class);
+        params.forEach(query::setParameter);
+        return new ProjectedRows(fieldSet, query.getResultList(), null);
+    }
+
+    public ProjectedRows findPage(FieldSet fieldSet, String where, Map<String, Object> params, Pageable pageable) {
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                fieldSet.selectFrom() + whereClause(where) + orderBy(fieldSet, pageable.getSort()), Tuple.class);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<Tuple> rows = query.getResultList();
+
+        TypedQuery<Long> count = entityManager.createQuery(fieldSet.fromForCount() + whereClause(where), Long.class);
+        params.forEach(count::setParameter);
+
+        return new ProjectedRows(fieldSet, rows,
+                new ProjectedRows.PageInfo(pageable.getPageNumber(), pageable.getPageSize(), count.getSingleResult()));
+    }
+
+    private static String whereClause(String where) {
+        return where == null ? "" : " where " + where;
+    }
+
+    // Sort properties go through the same whitelist as the selected fields
+    private static String orderBy(FieldSet fieldSet, Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(" order by ");
+        boolean first = true;
+        for (Sort.Order order : sort) {
+            if (!first) {
+                sb.append(", ");
+            }
+            ProjectionSchema.Field field = fieldSet.getSchema().field(order.getProperty());
+            if (!fieldSet.hasJoin(field.join())) {
+                throw new BadRequestException("Sort by '" + field.name() + "' requires selecting it");
+            }
+            sb.append(field.path())
+                    .append(order.isAscending() ? " asc" : " desc");
+            first = false;
+        }
+        return sb.toString();
+    }
+}
@@ -2,11 +2,16 @@ package com.prad.PMS.Repository;
 
 import com.prad.PMS.Entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("select u.id, u.email from User u where u.email is not null")
+    List<Object[]> findAllIdAndEmail();
 }
 
@@ -0,0 +1,137 @@
+package com.prad.PMS.Security;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit driven by request latency, judged once per sampling
+ * window. Each route keeps its own latencies for the window and a slow moving
+ * average of its window p90 as the baseline; a cheap GET and a slow report
+ * are never compared with each other. If any route's p90 for the window is
+ * beyond tolerance of its baseline (queueing for DB connections) the limit is
+ * cut back once, otherwise it grows if the window actually used it, so excess
+ * requests are shed before the pool saturates.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private static final int MAX_ROUTES = 1000;
+    private static final String OTHER_ROUTES = "*";
+    private static final int SAMPLES_PER_WINDOW = 256;
+    private static final int MIN_SAMPLES = 10;
+    private static final double BASELINE_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicBoolean adjusting = new AtomicBoolean();
+    private final Map<String, RouteLatency> routes = new ConcurrentHashMap<>();
+
+    private volatile int limit;
+    private volatile long windowStart = System.nanoTime();
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, long windowMs) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = windowMs * 1_000_000;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    void release(String route, long latencyNanos) {
+        inFlight.decrementAndGet();
+        routeLatency(route).record(latencyNanos);
+
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos && adjusting.compareAndSet(false, true)) {
+            try {
+                windowStart = now;
+                adjust();
+            } finally {
+                adjusting.set(false);
+            }
+        }
+    }
+
+    // At most one change per window, however many requests finish in it
+    private void adjust() {
+        boolean degraded = false;
+        for (RouteLatency route : routes.values()) {
+            degraded |= route.closeWindow(tolerance);
+        }
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        int current = limit;
+        if (degraded) {
+            limit = Math.max(minLimit, (int) (current * 0.9));
+        } else if (peak * 2 >= current) {
+            limit = Math.min(maxLimit, current + Math.max(1, (int) Math.sqrt(current)));
+        }
+    }
+
+    private RouteLatency routeLatency(String route) {
+        RouteLatency latency = routes.get(route);
+        if (latency != null) {
+            return latency;
+        }
+        // Routes are normalised by the caller; the cap only guards against unexpected cardinality
+        String key = routes.size() < MAX_ROUTES ? route : OTHER_ROUTES;
+        return routes.computeIfAbsent(key, k -> new RouteLatency());
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static final class RouteLatency {
+        private final long[] samples = new long[SAMPLES_PER_WINDOW];
+        private int count;
+        private double baseline;
+
+        synchronized void record(long latencyNanos) {
+            // Past the array size the window keeps its most recent samples
+            samples[count++ % samples.length] = latencyNanos;
+        }
+
+        // True if this window's p90 is beyond tolerance of the baseline
+        synchronized boolean closeWindow(double tolerance) {
+            int n = Math.min(count, samples.length);
+            count = 0;
+            if (n < MIN_SAMPLES) {
+                return false; // too few requests on this route to say anything
+            }
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            double p90 = sorted[(int) Math.ceil(n * 0.9) - 1];
+            if (baseline == 0) {
+                baseline = p90;
+                return false;
+            }
+            boolean degraded = p90 > baseline * tolerance;
+            // A long-term average rather than a floor, so a route that is simply slower now is accepted over time
+            baseline = baseline * (1 - BASELINE_WEIGHT) + p90 * BASELINE_WEIGHT;
+            return degraded;
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.prad.PMS.Security;
 import com.prad.PMS.Entity.User;
 import com.prad.PMS.Repository.UserRepository;
 import com.prad.PMS.Entity.Role;
+import com.prad.PMS.Service.CacheCoherenceService;
+import com.prad.PMS.Service.CoherentCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
@@ -18,8 +21,32 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    // JwtFilter calls this on every request; entries are shared-nothing and evicted via the change log
+    private final CoherentCache<CachedUser> cache;
+
+    public CustomUserDetailsService(CacheCoherenceService coherence,
+                                    @Value("${pms.coherence.users.max-entries:10000}") int maxEntries) {
+        this.cache = coherence.cache("users", maxEntries);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        CachedUser user = cache.get(email, this::load);
+
+        // Fresh instance each time: Spring Security erases credentials on the object it is handed
+        return new org.springframework.security.core.userdetails.User(
+                user.email(),
+                user.password(),
+                user.authorities()
+        );
+    }
+
+    // Call inside the transaction of any write to a user or their roles
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+
+    private CachedUser load(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
@@ -27,10 +54,9 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .map(role -> new SimpleGrantedAuthority(role.getName().name()))  // ✅ RoleName enum to String
                 .collect(Collectors.toSet());
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                authorities
-        );
+        return new CachedUser(user.getEmail(), user.getPassword(), authorities);
+    }
+
+    private record CachedUser(String email, String password, Set<GrantedAuthority> authorities) {
     }
 }
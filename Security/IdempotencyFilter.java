@@ -0,0 +1,331 @@
+package com.prad.PMS.Security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Idempotency-Key support for the create endpoints. The first request with a
+ * key runs normally and its response is kept for a while; retries with the
+ * same key get that response back without reaching the service layer. The key
+ * is bound to a hash of the request body: reusing it for a different body is
+ * a client bug and gets 422 instead of someone else's response.
+ *
+ * Keys live in idempotency_keys, unique per caller, endpoint and key, so a
+ * retry is recognised whichever node it reaches. The row is inserted at the
+ * start of one transaction that the create joins and is only committed
+ * together with it and its response: a retry that arrives meanwhile blocks on
+ * the row lock and then sees the outcome, and a create that fails or rolls back
+ * leaves no key behind, so the retry runs for real. The transaction holds a
+ * connection for the whole request, which is why only requests carrying the
+ * header take this path.
+ *
+ * The filter runs after authorisation inside the security chain, so security
+ * rejections are never stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final Set<String> PATHS = Set.of("/api/appointments", "/api/patients");
+
+    // Describe the original transfer, not the result; the servlet container sets its own
+    private static final Set<String> NOT_REPLAYED = Set.of(
+            "content-type", "content-length", "transfer-encoding", "date", "connection", "set-cookie");
+
+    private static final String KEY_MATCHES = " where principal = ? and uri = ? and idempotency_key = ?";
+    private static final String CLAIM = "insert into idempotency_keys (principal, uri, idempotency_key, "
+            + "fingerprint, status, created_at, expires_at) values (?, ?, ?, ?, 0, ?, ?)";
+    private static final String LOAD = "select fingerprint, status, content_type, headers, body, expires_at "
+            + "from idempotency_keys" + KEY_MATCHES + " for update";
+    private static final String STORE = "update idempotency_keys "
+            + "set status = ?, content_type = ?, headers = ?, body = ?" + KEY_MATCHES;
+    private static final String DELETE = "delete from idempotency_keys" + KEY_MATCHES;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+
+    @Value("${pms.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${pms.idempotency.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + HEADER);
+            return;
+        }
+        BufferedBodyRequest buffered = new BufferedBodyRequest(request);
+        // Keys are scoped to the caller so one client can never see another's response
+        Claim claim = new Claim(principal(), request.getRequestURI(), idempotencyKey, sha256(buffered.body));
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+
+        CachedResponse outcome;
+        try {
+            outcome = tx.execute(status -> claimAndRun(status, claim, buffered, wrapper, chain));
+        } catch (ChainException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw (ServletException) e.getCause();
+        }
+
+        if (outcome == EXECUTED) {
+            wrapper.copyBodyToResponse(); // only now that the create and its key have committed
+        } else if (outcome == MISMATCH) {
+            response.sendError(422, HEADER + " was already used with a different request body");
+        } else if (outcome == IN_PROGRESS) {
+            response.sendError(HttpServletResponse.SC_CONFLICT,
+                    "A request with this " + HEADER + " is still in progress");
+        } else {
+            outcome.writeTo(response);
+        }
+    }
+
+    private CachedResponse claimAndRun(TransactionStatus status, Claim claim, HttpServletRequest request,
+                                       ContentCachingResponseWrapper response, FilterChain chain) {
+        while (true) {
+            try {
+                long now = System.currentTimeMillis();
+                jdbcTemplate.update(CLAIM, claim.principal(), claim.uri(), claim.key(), claim.fingerprint(),
+                        new Timestamp(now), new Timestamp(now + ttlMs));
+                break;
+            } catch (DuplicateKeyException e) {
+                // Committed by an earlier attempt, possibly on another node
+                CachedResponse existing = load(claim);
+                if (existing != null) {
+                    status.setRollbackOnly();
+                    return existing;
+                }
+            } catch (PessimisticLockingFailureException e) {
+                // The first attempt held the key for longer than innodb_lock_wait_timeout
+                status.setRollbackOnly();
+                return IN_PROGRESS;
+            }
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException e) {
+            throw new ChainException(e);
+        }
+        if (response.getStatus() >= 500 || status.isRollbackOnly()) {
+            // Nothing of it commits, the key included, so the client can retry for real
+            status.setRollbackOnly();
+            return EXECUTED;
+        }
+        jdbcTemplate.update(STORE, response.getStatus(), response.getContentType(),
+                encodeHeaders(replayableHeaders(response)), response.getContentAsByteArray(),
+                claim.principal(), claim.uri(), claim.key());
+        return EXECUTED;
+    }
+
+    // Null if the row has expired (and is now deleted) or vanished, so the caller can claim the key afresh
+    private CachedResponse load(Claim claim) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD, claim.principal(), claim.uri(), claim.key());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        if (((Timestamp) row.get("expires_at")).getTime() < System.currentTimeMillis()) {
+            jdbcTemplate.update(DELETE, claim.principal(), claim.uri(), claim.key());
+            return null;
+        }
+        if (!Arrays.equals((byte[]) row.get("fingerprint"), claim.fingerprint())) {
+            return MISMATCH;
+        }
+        byte[] body = (byte[]) row.get("body");
+        return new CachedResponse(((Number) row.get("status")).intValue(), (String) row.get("content_type"),
+                decodeHeaders((String) row.get("headers")), body != null ? body : new byte[0]);
+    }
+
+    // Location and whatever else the controller set, so a replayed 201 points at the same resource
+    private static Map<String, List<String>> replayableHeaders(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!NOT_REPLAYED.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.putIfAbsent(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    // One "name: value" line per value; header values cannot contain line breaks
+    private static String encodeHeaders(Map<String, List<String>> headers) {
+        StringBuilder encoded = new StringBuilder();
+        headers.forEach((name, values) -> values.forEach(
+                value -> encoded.append(name).append(": ").append(value).append('\n')));
+        return encoded.toString();
+    }
+
+    private static Map<String, List<String>> decodeHeaders(String encoded) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        if (encoded == null) {
+            return headers;
+        }
+        for (String line : encoded.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) {
+                headers.computeIfAbsent(line.substring(0, colon), k -> new ArrayList<>())
+                        .add(line.substring(colon + 2));
+            }
+        }
+        return headers;
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE ships SHA-256
+        }
+    }
+
+    // In batches, so the purge never holds locks on a large range at once
+    @Scheduled(fixedDelayString = "${pms.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        while (jdbcTemplate.update("delete from idempotency_keys where expires_at < ? limit ?", now, purgeBatchSize)
+                == purgeBatchSize) {
+            // keep going until a short batch
+        }
+    }
+
+    private static String principal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonymous";
+    }
+
+    private static final CachedResponse EXECUTED = new CachedResponse(0, null, Map.of(), new byte[0]);
+    private static final CachedResponse MISMATCH = new CachedResponse(0, null, Map.of(), new byte[0]);
+    private static final CachedResponse IN_PROGRESS = new CachedResponse(0, null, Map.of(), new byte[0]);
+
+    private record Claim(String principal, String uri, String key, byte[] fingerprint) {
+    }
+
+    // Carries the chain's checked exceptions out of the transaction callback, rolling it back on the way
+    private static final class ChainException extends RuntimeException {
+        ChainException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private record CachedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            headers.forEach((name, values) -> {
+                response.setHeader(name, values.isEmpty() ? "" : values.get(0));
+                values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+            });
+            response.setHeader("Idempotent-Replayed", "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // The body is read once up front so it can be hashed and still be read by the controller
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Everything is already in memory, so all of it is available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
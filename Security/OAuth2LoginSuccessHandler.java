@@ -7,13 +7,16 @@ import com.prad.PMS.Entity.RoleName;
 import com.prad.PMS.Entity.User;
 import com.prad.PMS.Repository.RoleRepository;
 import com.prad.PMS.Repository.UserRepository;
+import com.prad.PMS.Service.UniquenessIndex;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.util.*;
@@ -25,6 +28,8 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository; // Make sure it's injected
+    private final UniquenessIndex uniquenessIndex;
+    private final TransactionTemplate tx;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
@@ -34,23 +39,47 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
         String email = oauthUser.getAttribute("email");
         String name = oauthUser.getAttribute("name");
 
-        User user = userRepository.findByEmail(email).orElseGet(() -> {
-            User newUser = new User();
-            newUser.setEmail(email);
-            newUser.setUsername(name);
-            newUser.setPassword(""); // Or generate random/dummy password if needed
-            newUser.setProvider(AuthProvider.GOOGLE);
+        // CustomOAuth2UserService has normally registered the user already, so only the email is needed
+        if (uniquenessIndex.contains(UniquenessIndex.Key.USER_EMAIL, email)) {
+            writeToken(response, jwtUtil.generateToken(email));
+            return;
+        }
 
-            // Assign default role
-            Role defaultRole = roleRepository.findByName(RoleName.ROLE_PATIENT)
-                    .orElseThrow(() -> new RuntimeException("Default role not found"));
-            newUser.setRoles(Set.of(defaultRole));
+        // A miss only means "probably absent"; the table decides
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user != null) {
+            uniquenessIndex.learn(UniquenessIndex.Key.USER_EMAIL, user.getEmail(), user.getId());
+        } else {
+            user = register(email, name);
+        }
+        writeToken(response, jwtUtil.generateToken(user.getEmail()));
+    }
+
+    private User register(String email, String name) {
+        User newUser = new User();
+        newUser.setEmail(email);
+        newUser.setUsername(name);
+        newUser.setPassword(""); // Or generate random/dummy password if needed
+        newUser.setProvider(AuthProvider.GOOGLE);
 
-            return userRepository.save(newUser);
-        });
+        // Assign default role
+        Role defaultRole = roleRepository.findByName(RoleName.ROLE_PATIENT)
+                .orElseThrow(() -> new RuntimeException("Default role not found"));
+        newUser.setRoles(Set.of(defaultRole));
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        try {
+            return tx.execute(status -> {
+                User saved = userRepository.save(newUser);
+                uniquenessIndex.confirm(UniquenessIndex.Key.USER_EMAIL, saved.getEmail(), saved.getId());
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently (CustomOAuth2UserService or another node); that insert has committed by now
+            return userRepository.findByEmail(email).orElseThrow(() -> e);
+        }
+    }
 
+    private void writeToken(HttpServletResponse response, String token) throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         response.getWriter().write(new ObjectMapper().writeValueAsString(Map.of("jwt", token)));
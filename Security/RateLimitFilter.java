@@ -0,0 +1,207 @@
+package com.prad.PMS.Security;
+
+import com.prad.PMS.Monitoring.RequestLogFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs after JwtFilter. Each principal gets a token bucket per route, sized
+ * by its strongest role, and every request also has to fit under the
+ * adaptive concurrency limit. Empty bucket gives 429, shed load gives 503.
+ * Anonymous callers are keyed by client address, which behind the load
+ * balancer is the X-Forwarded-For address resolved by the server
+ * (server.forward-headers-strategy); logins also draw from a bucket per account.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> overflowBuckets = new ConcurrentHashMap<>();
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final long startNanos = System.nanoTime();
+
+    @Value("${pms.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pms.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${pms.ratelimit.admin.capacity:200}")
+    private long adminCapacity;
+    @Value("${pms.ratelimit.admin.per-second:100}")
+    private long adminPerSecond;
+
+    @Value("${pms.ratelimit.doctor.capacity:100}")
+    private long doctorCapacity;
+    @Value("${pms.ratelimit.doctor.per-second:50}")
+    private long doctorPerSecond;
+
+    @Value("${pms.ratelimit.patient.capacity:30}")
+    private long patientCapacity;
+    @Value("${pms.ratelimit.patient.per-second:10}")
+    private long patientPerSecond;
+
+    @Value("${pms.ratelimit.anonymous.capacity:20}")
+    private long anonymousCapacity;
+    @Value("${pms.ratelimit.anonymous.per-second:5}")
+    private long anonymousPerSecond;
+
+    @Value("${pms.ratelimit.login.capacity:10}")
+    private long loginCapacity;
+    @Value("${pms.ratelimit.login.per-second:1}")
+    private long loginPerSecond;
+
+    public RateLimitFilter(@Value("${pms.concurrency.initial-limit:20}") int initialLimit,
+                           @Value("${pms.concurrency.min-limit:5}") int minLimit,
+                           @Value("${pms.concurrency.max-limit:200}") int maxLimit,
+                           @Value("${pms.concurrency.latency-tolerance:2.0}") double tolerance,
+                           @Value("${pms.concurrency.window-ms:1000}") long windowMs) {
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, windowMs);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        if (current != null && current.isAuthenticated() && !"anonymousUser".equals(current.getName())) {
+            request.setAttribute(RequestLogFilter.PRINCIPAL_ATTRIBUTE, current.getName()); // for the request log
+        }
+
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long now = nowMs();
+        String route = request.getMethod() + " " + normalise(request.getRequestURI());
+        TokenBucket bucket = bucketFor(request, route, now);
+        if (!bucket.tryAcquire(now)) {
+            reject(response, 429, bucket.waitMs(now), "Too many requests");
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1000, "Server busy, retry shortly");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(route, System.nanoTime() - start);
+        }
+    }
+
+    private TokenBucket bucketFor(HttpServletRequest request, String route, long now) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName());
+
+        String role = authenticated ? strongestRole(auth) : "ANONYMOUS";
+        // The client's own address once the server has applied X-Forwarded-For from a trusted proxy
+        String principal = authenticated ? auth.getName() : request.getRemoteAddr();
+        String key = principal + '|' + route;
+
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            // Memory stays bounded: unknown keys share one bucket per role and route until the sweep frees space
+            return overflowBuckets.computeIfAbsent(role + '|' + route, k -> newBucket(role, now));
+        }
+        return buckets.computeIfAbsent(key, k -> newBucket(role, now));
+    }
+
+    /**
+     * Takes one login attempt for the account from its own bucket, so guessing
+     * one password from many addresses still runs dry, and one client cannot use
+     * up the attempts of every other account. Returns 0 if the attempt may go
+     * ahead, otherwise the milliseconds until it may.
+     */
+    public long acquireLogin(String email) {
+        if (!enabled || email == null) {
+            return 0;
+        }
+        long now = nowMs();
+        String key = "login|" + email.trim().toLowerCase(Locale.ROOT);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                return 0; // a shared overflow bucket would lock every account out; the address bucket still applies
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(loginCapacity, loginPerSecond, now));
+        }
+        return bucket.tryAcquire(now) ? 0 : Math.max(1, bucket.waitMs(now));
+    }
+
+    private TokenBucket newBucket(String role, long now) {
+        return switch (role) {
+            case "ROLE_ADMIN" -> new TokenBucket(adminCapacity, adminPerSecond, now);
+            case "ROLE_DOCTOR" -> new TokenBucket(doctorCapacity, doctorPerSecond, now);
+            case "ROLE_PATIENT" -> new TokenBucket(patientCapacity, patientPerSecond, now);
+            default -> new TokenBucket(anonymousCapacity, anonymousPerSecond, now);
+        };
+    }
+
+    private static String strongestRole(Authentication auth) {
+        String best = "ROLE_PATIENT";
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            String name = authority.getAuthority();
+            if ("ROLE_ADMIN".equals(name)) {
+                return name;
+            }
+            if ("ROLE_DOCTOR".equals(name)) {
+                best = name;
+            }
+        }
+        return best;
+    }
+
+    // /api/patients/42 and /api/patients/43 share one bucket
+    private static String normalise(String uri) {
+        StringBuilder sb = new StringBuilder(uri.length());
+        for (String part : uri.split("/")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            sb.append('/').append(part.chars().allMatch(Character::isDigit) ? "{id}" : part);
+        }
+        return sb.toString();
+    }
+
+    private static void reject(HttpServletResponse response, int status, long retryAfterMs, String message)
+            throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (retryAfterMs + 999) / 1000)));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
+
+    // Full buckets carry no state worth keeping
+    @Scheduled(fixedDelayString = "${pms.ratelimit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = nowMs();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        overflowBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private long nowMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
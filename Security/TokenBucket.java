@@ -0,0 +1,59 @@
+package com.prad.PMS.Security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket packed into a single long so acquire is one CAS:
+ * upper 24 bits hold milli-tokens, lower 40 bits the last refill time in ms.
+ */
+class TokenBucket {
+
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MAX_MILLI_TOKENS = (1L << (64 - TIME_BITS)) - 1;
+    private static final long ONE_TOKEN = 1000;
+
+    private final AtomicLong state;
+    private final long capacity;    // milli-tokens
+    private final long refillPerMs; // milli-tokens per ms == tokens per second
+
+    TokenBucket(long capacityTokens, long tokensPerSecond, long nowMs) {
+        this.capacity = Math.min(capacityTokens * ONE_TOKEN, MAX_MILLI_TOKENS);
+        this.refillPerMs = Math.max(1, tokensPerSecond);
+        this.state = new AtomicLong(pack(capacity, nowMs));
+    }
+
+    boolean tryAcquire(long nowMs) {
+        while (true) {
+            long current = state.get();
+            long available = available(current, nowMs);
+            if (available < ONE_TOKEN) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(available - ONE_TOKEN, nowMs))) {
+                return true;
+            }
+        }
+    }
+
+    // Milliseconds until one token is available, used for Retry-After
+    long waitMs(long nowMs) {
+        long missing = ONE_TOKEN - available(state.get(), nowMs);
+        return missing <= 0 ? 0 : (missing + refillPerMs - 1) / refillPerMs;
+    }
+
+    boolean isFull(long nowMs) {
+        return available(state.get(), nowMs) >= capacity;
+    }
+
+    private long available(long packed, long nowMs) {
+        long tokens = packed >>> TIME_BITS;
+        long elapsed = Math.max(0, (nowMs & TIME_MASK) - (packed & TIME_MASK));
+        elapsed = Math.min(elapsed, capacity / refillPerMs + 1); // no overflow on long idle buckets
+        return Math.min(capacity, tokens + elapsed * refillPerMs);
+    }
+
+    private static long pack(long milliTokens, long nowMs) {
+        return (milliTokens << TIME_BITS) | (nowMs & TIME_MASK);
+    }
+}
@@ -0,0 +1,108 @@
+package com.prad.PMS.Security;
+
+import com.prad.PMS.Entity.RevokedToken;
+import com.prad.PMS.Exception.BadRequestException;
+import com.prad.PMS.Repository.RevokedTokenRepository;
+import com.prad.PMS.Service.CacheCoherenceService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * Token denylist. The revoked_tokens table is authoritative; an in-memory
+ * Bloom filter in front of it means the database is only consulted when a
+ * token id might be revoked. Each revocation is published through the cache
+ * change log in the same transaction as its row, so other instances add it
+ * to their filters within one poll interval. Rows are purged once the token
+ * has expired and the filter is rebuilt from what is left.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final String CHANGE_LOG_NAME = "revoked-tokens";
+
+    private final RevokedTokenRepository repository;
+    private final JwtUtil jwtUtil;
+    private final CacheCoherenceService coherence;
+    private final TransactionTemplate tx;
+    private final int bloomBits;
+    private final int bloomHashes;
+    private final Object lock = new Object();
+
+    private volatile RevocationBloomFilter filter;
+
+    public TokenRevocationService(RevokedTokenRepository repository,
+                                  JwtUtil jwtUtil,
+                                  CacheCoherenceService coherence,
+                                  TransactionTemplate tx,
+                                  @Value("${pms.revocation.bloom-bits:1048576}") int bloomBits,
+                                  @Value("${pms.revocation.bloom-hashes:5}") int bloomHashes) {
+        this.repository = repository;
+        this.jwtUtil = jwtUtil;
+        this.coherence = coherence;
+        this.tx = tx;
+        this.bloomBits = bloomBits;
+        this.bloomHashes = bloomHashes;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+        coherence.listen(CHANGE_LOG_NAME, this::addRemote, this::rebuild);
+    }
+
+    public void rebuild() {
+        synchronized (lock) {
+            RevocationBloomFilter fresh = new RevocationBloomFilter(bloomBits, bloomHashes);
+            repository.findActiveJtis(Instant.now()).forEach(fresh::add);
+            filter = fresh;
+        }
+    }
+
+    public void revoke(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Expired, tampered or missing: nothing to revoke, and the caller's mistake
+            throw new BadRequestException("Token is invalid or expired");
+        }
+        if (claims.getId() == null) {
+            throw new BadRequestException("Token has no jti and cannot be revoked");
+        }
+        synchronized (lock) {
+            tx.executeWithoutResult(status -> {
+                repository.save(new RevokedToken(claims.getId(), claims.getExpiration().toInstant()));
+                coherence.publish(CHANGE_LOG_NAME, claims.getId());
+            });
+            filter.add(claims.getId());
+        }
+    }
+
+    // A revocation made on another instance; under the lock so a concurrent rebuild cannot drop it
+    private void addRemote(String jti) {
+        synchronized (lock) {
+            filter.add(jti);
+        }
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return repository.existsById(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${pms.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteExpired(Instant.now());
+        rebuild();
+    }
+}
@@ -0,0 +1,129 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Repository.AppointmentRepository;
+import com.prad.PMS.Repository.ArchivedAppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves COMPLETED/CANCELLED appointments older than the retention cutoff into
+ * appointment_archive. Each batch copies and deletes in one transaction, so a
+ * run interrupted at any point simply picks up the remaining rows next time.
+ * Runs only inside the configured off-peak window and pauses between batches.
+ */
+@Slf4j
+@Service
+@Lazy(false) // nothing injects it, so it would never be created under lazy initialisation
+public class AppointmentArchiver {
+
+    private static final Set<Appointment.Status> FINISHED =
+            EnumSet.of(Appointment.Status.COMPLETED, Appointment.Status.CANCELLED);
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archiveRepository;
+    private final TransactionTemplate tx;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${pms.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pms.archive.retention-days:365}")
+    private int retentionDays;
+
+    @Value("${pms.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${pms.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${pms.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${pms.archive.window-start-hour:1}")
+    private int windowStartHour;
+
+    @Value("${pms.archive.window-end-hour:5}")
+    private int windowEndHour;
+
+    public AppointmentArchiver(AppointmentRepository appointmentRepository,
+                               ArchivedAppointmentRepository archiveRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.archiveRepository = archiveRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${pms.archive.interval-ms:600000}")
+    public void scheduledRun() {
+        if (enabled && inWindow(LocalTime.now())) {
+            run();
+        }
+    }
+
+    public int run() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            long afterId = 0L;
+            int moved = 0;
+
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                if (batch > 0 && !inWindow(LocalTime.now())) {
+                    break;
+                }
+                List<Long> ids = appointmentRepository.findArchivableIds(
+                        FINISHED, cutoff, afterId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                moved += tx.execute(status -> moveBatch(ids));
+                afterId = ids.get(ids.size() - 1);
+
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+            if (moved > 0) {
+                log.info("Archived {} appointments older than {}", moved, cutoff);
+            }
+            return moved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // INSERT ... SELECT then DELETE: two statements per batch, whatever its size
+    private int moveBatch(List<Long> ids) {
+        int copied = archiveRepository.copyFromAppointments(ids, LocalDateTime.now());
+        appointmentRepository.deleteAllByIdInBatch(ids);
+        return copied;
+    }
+
+    private boolean inWindow(LocalTime time) {
+        int hour = time.getHour();
+        if (windowStartHour <= windowEndHour) {
+            return hour >= windowStartHour && hour < windowEndHour;
+        }
+        return hour >= windowStartHour || hour < windowEndHour; // window wraps midnight
+    }
+}
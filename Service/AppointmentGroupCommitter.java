@@ -0,0 +1,251 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Event.AppointmentEvent;
+import com.prad.PMS.Event.AppointmentEventBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group commit for new appointments (pms.group-commit.enabled).
+ * Bookings are queued and a single writer inserts them in micro-batches, one
+ * transaction and one multi-row INSERT per batch, closing a batch when it is
+ * full or max-wait-ms after its first booking. Each caller blocks until its
+ * batch has committed, so a 200 still means the row is durable.
+ *
+ * Appointment ids are IDENTITY, which stops Hibernate from batching inserts,
+ * so the batch goes through JdbcTemplate; with rewriteBatchedStatements on
+ * the MySQL URL the driver sends it as one statement and returns every id.
+ *
+ * If the writer thread dies, group commit switches itself off and bookings
+ * are saved directly again.
+ */
+@Slf4j
+@Service
+@Lazy(false) // the writer starts with the context, not on (and inheriting from) the first request thread
+public class AppointmentGroupCommitter {
+
+    private static final String INSERT =
+            "insert into appointment (date_time, reason, status, patient_id, doctor_id) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final AppointmentEventBus eventBus;
+    private final AvailabilityIndex availabilityIndex;
+
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final long commitTimeoutMs;
+    private final BlockingQueue<Pending> queue;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public AppointmentGroupCommitter(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     AppointmentEventBus eventBus,
+                                     AvailabilityIndex availabilityIndex,
+                                     @Value("${pms.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${pms.group-commit.queue-capacity:1024}") int queueCapacity,
+                                     @Value("${pms.group-commit.max-batch:64}") int maxBatch,
+                                     @Value("${pms.group-commit.max-wait-ms:5}") long maxWaitMs,
+                                     @Value("${pms.group-commit.commit-timeout-ms:5000}") long commitTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        // Bounds how long a caller can be kept waiting once its batch is being written
+        this.tx.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(commitTimeoutMs)));
+        this.eventBus = eventBus;
+        this.availabilityIndex = availabilityIndex;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.commitTimeoutMs = commitTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = new Thread(this::run, "appointment-group-commit");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Saves the appointment as part of the next batch and returns it with its id.
+     * Returns null when group commit is off, the queue is full or the writer has
+     * stopped; the caller then saves it on its own, as it also does when the
+     * writer has not picked the booking up within commit-timeout-ms. Once its
+     * batch is being written the call waits for the real outcome, which the
+     * batch transaction's timeout bounds: failing early would tell the client
+     * the booking failed while the row may still commit, and its retry would
+     * book twice.
+     */
+    public Appointment commit(Appointment appointment) {
+        if (!running) {
+            return null;
+        }
+        Pending pending = new Pending(appointment, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            return null;
+        }
+        try {
+            try {
+                return pending.result().get(commitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(pending)) {
+                    return null; // never picked up, so it is safe to save it directly
+                }
+                log.warn("Appointment batch still committing after {} ms, waiting for its outcome", commitTimeoutMs);
+                return pending.result().get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the appointment batch", e);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    log.error("Group commit writer failed", e);
+                    batch.forEach(p -> p.result().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Shutting down")));
+        } catch (Throwable t) {
+            log.error("Group commit writer stopped, appointments are saved directly from now on", t);
+            batch.forEach(p -> p.result().completeExceptionally(t));
+        } finally {
+            running = false;
+            // Never attempted: hand them back so the callers save them directly
+            Pending left;
+            while ((left = queue.poll()) != null) {
+                left.result().complete(null);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            tx.executeWithoutResult(status -> {
+                insert(batch);
+                availabilityIndex.publishChanges(
+                        batch.stream().map(p -> p.appointment().getDoctor().getId()).toList());
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.appointment().setId(null));
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad row (e.g. a patient deleted meanwhile) must not fail the rest of the batch
+            log.warn("Group commit of {} appointments failed, retrying one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                flush(List.of(pending));
+            }
+            return;
+        }
+        for (Pending pending : batch) {
+            eventBus.publish(AppointmentEvent.Type.CREATED, pending.appointment());
+            pending.result().complete(pending.appointment());
+        }
+    }
+
+    private void insert(List<Pending> batch) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Appointment a = batch.get(i).appointment();
+                        ps.setObject(1, a.getDateTime());
+                        ps.setString(2, a.getReason());
+                        ps.setString(3, a.getStatus().name());
+                        ps.setLong(4, a.getPatient().getId());
+                        ps.setLong(5, a.getDoctor().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < batch.size(); i++) {
+            Number id = (Number) generated.get(i).values().iterator().next();
+            batch.get(i).appointment().setId(id.longValue());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(5000);
+        // Anything still queued was never written; fail it rather than leave callers waiting
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("Shutting down"));
+        }
+    }
+
+    private record Pending(Appointment appointment, CompletableFuture<Appointment> result) {
+    }
+}
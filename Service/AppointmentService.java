@@ -1,21 +1,80 @@
 package com.prad.PMS.Service;
 
 import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Entity.ArchivedAppointment;
+import com.prad.PMS.Entity.Doctor;
+import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Exception.ConflictException;
+import com.prad.PMS.Event.AppointmentEvent;
+import com.prad.PMS.Event.AppointmentEventBus;
+import com.prad.PMS.Projection.FieldSet;
+import com.prad.PMS.Projection.ProjectedRows;
+import com.prad.PMS.Projection.ProjectionSchema;
 import com.prad.PMS.Repository.AppointmentRepository;
+import com.prad.PMS.Repository.ArchivedAppointmentRepository;
+import com.prad.PMS.Repository.DoctorRepository;
+import com.prad.PMS.Repository.PatientRepository;
+import com.prad.PMS.Repository.ProjectionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentEventBus eventBus;
+    private final ArchivedAppointmentRepository archiveRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final ProjectionRepository projectionRepository;
+    private final AppointmentGroupCommitter groupCommitter;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate tx;
+
+    private static final int MAX_REPORTED_CLASHES = 20;
+
+    @Value("${pms.appointments.bulk-batch-size:500}")
+    private int bulkBatchSize;
+
+    @Value("${pms.availability.slot-minutes:30}")
+    private int slotMinutes;
+
+    // Anything older may have been moved to appointment_archive by AppointmentArchiver
+    @Value("${pms.archive.retention-days:365}")
+    private int archiveRetentionDays;
 
     public Appointment create(Appointment appointment) {
-        return appointmentRepository.save(appointment);
+        // A caller's transaction (an Idempotency-Key request) must cover the insert, so it skips the batches
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            Appointment committed = groupCommitter.commit(appointment);
+            if (committed != null) {
+                return committed; // saved and published as part of a batch
+            }
+        }
+        Appointment saved = tx.execute(status -> {
+            Appointment a = appointmentRepository.save(appointment);
+            availabilityIndex.publishChanges(List.of(a.getDoctor().getId()));
+            return a;
+        });
+        eventBus.publishAfterCommit(AppointmentEvent.Type.CREATED, List.of(saved));
+        return saved;
     }
 
     public List<Appointment> getAll() {
@@ -30,14 +89,207 @@ public class AppointmentService {
         return appointmentRepository.findByPatientId(patientId);
     }
 
+    // Hot rows plus anything the archiver has moved out
+    public List<Appointment> getByPatient(Long patientId, boolean includeArchived) {
+        List<Appointment> result = new ArrayList<>(getByPatient(patientId));
+        if (includeArchived) {
+            result.addAll(fromArchive(archiveRepository.findByPatientIdOrderByDateTimeDesc(patientId)));
+        }
+        return result;
+    }
+
     public List<Appointment> getByDateRange(LocalDateTime start, LocalDateTime end) {
         return appointmentRepository.findByDateTimeBetween(start, end);
     }
 
+    // The archive is only read when the range reaches back past the retention cutoff
+    public List<Appointment> getByDateRange(LocalDateTime start, LocalDateTime end, boolean includeArchived) {
+        List<Appointment> result = new ArrayList<>(getByDateRange(start, end));
+        if (includeArchived && reachesArchive(start)) {
+            result.addAll(fromArchive(archiveRepository.findByDateTimeBetween(start, end)));
+        }
+        return result;
+    }
+
+    private boolean reachesArchive(LocalDateTime start) {
+        return start.isBefore(LocalDateTime.now().minusDays(archiveRetentionDays));
+    }
+
+    // Archived rows keep plain ids; patients and doctors are loaded once per call
+    private List<Appointment> fromArchive(List<ArchivedAppointment> archived) {
+        if (archived.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patients = patientRepository.findAllById(
+                archived.stream().map(ArchivedAppointment::getPatientId).distinct().toList()
+        ).stream().collect(Collectors.toMap(Patient::getId, Function.identity()));
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(
+                archived.stream().map(ArchivedAppointment::getDoctorId).distinct().toList()
+        ).stream().collect(Collectors.toMap(Doctor::getId, Function.identity()));
+
+        List<Appointment> result = new ArrayList<>(archived.size());
+        for (ArchivedAppointment a : archived) {
+            result.add(Appointment.builder()
+                    .id(a.getId())
+                    .dateTime(a.getDateTime())
+                    .reason(a.getReason())
+                    .status(a.getStatus())
+                    .patient(patients.get(a.getPatientId()))
+                    .doctor(doctors.get(a.getDoctorId()))
+                    .build());
+        }
+        return result;
+    }
+
+    // ?fields= variants: only the requested columns are selected and serialised
+
+    public ProjectedRows getAll(String fields) {
+        return projectionRepository.findAll(fieldSet(fields), null, Map.of(), Sort.unsorted());
+    }
+
+    public ProjectedRows getByDoctor(Long doctorId, String fields) {
+        return projectionRepository.findAll(fieldSet(fields), "e.doctor.id = :doctorId",
+                Map.of("doctorId", doctorId), Sort.unsorted());
+    }
+
+    public ProjectedRows getByPatient(Long patientId, boolean includeArchived, String fields) {
+        ProjectedRows hot = getByPatient(patientId, fields);
+        if (!includeArchived) {
+            return hot;
+        }
+        return hot.append(projectionRepository.findAll(
+                ProjectionSchema.ARCHIVED_APPOINTMENT.fieldSet(fields), "e.patientId = :patientId",
+                Map.of("patientId", patientId), Sort.by(Sort.Direction.DESC, "dateTime")));
+    }
+
+    public ProjectedRows getByPatient(Long patientId, String fields) {
+        return projectionRepository.findAll(fieldSet(fields), "e.patient.id = :patientId",
+                Map.of("patientId", patientId), Sort.unsorted());
+    }
+
+    public ProjectedRows getByDateRange(LocalDateTime start, LocalDateTime end, String fields) {
+        return projectionRepository.findAll(fieldSet(fields), "e.dateTime between :start and :end",
+                Map.of("start", start, "end", end), Sort.unsorted());
+    }
+
+    public ProjectedRows getByDateRange(LocalDateTime start, LocalDateTime end, boolean includeArchived,
+                                        String fields) {
+        ProjectedRows hot = getByDateRange(start, end, fields);
+        if (!includeArchived || !reachesArchive(start)) {
+            return hot;
+        }
+        return hot.append(projectionRepository.findAll(
+                ProjectionSchema.ARCHIVED_APPOINTMENT.fieldSet(fields), "e.dateTime between :start and :end",
+                Map.of("start", start, "end", end), Sort.unsorted()));
+    }
+
+    private static FieldSet fieldSet(String fields) {
+        return ProjectionSchema.APPOINTMENT.fieldSet(fields);
+    }
+
     public void cancel(Long id) {
-        Appointment appt = appointmentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Appointment not found"));
-        appt.setStatus(Appointment.Status.CANCELLED);
-        appointmentRepository.save(appt);
+        eventBus.publish(AppointmentEvent.Type.CANCELLED, setStatus(id, Appointment.Status.CANCELLED));
+    }
+
+    // Bulk transitions: one locking SELECT for the ids, one UPDATE, one reload for the event stream
+
+    @Transactional
+    public List<Long> cancelByDoctor(Long doctorId, LocalDateTime start, LocalDateTime end) {
+        List<Long> ids = appointmentRepository.lockIdsByDoctorAndRange(
+                doctorId, Appointment.Status.SCHEDULED, start, end);
+        return transition(ids, Appointment.Status.CANCELLED, AppointmentEvent.Type.CANCELLED);
+    }
+
+    // The backlog can be any size, so it is locked and updated one keyset batch (and transaction) at a time
+    public List<Long> completePast(LocalDateTime before) {
+        List<Long> completed = new ArrayList<>();
+        long afterId = 0L;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = tx.execute(status -> transition(
+                    appointmentRepository.lockIdsByStatusBefore(
+                            Appointment.Status.SCHEDULED, before, from, PageRequest.of(0, bulkBatchSize)),
+                    Appointment.Status.COMPLETED, AppointmentEvent.Type.COMPLETED));
+            completed.addAll(ids);
+            if (ids.size() < bulkBatchSize) {
+                return completed;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Rejected as a whole if any shifted booking would land on one of the doctor's bookings outside the range
+    @Transactional
+    public List<Long> rescheduleByDoctor(Long doctorId, LocalDateTime start, LocalDateTime end, long offsetMinutes) {
+        Map<Long, LocalDateTime> moving = new LinkedHashMap<>();
+        for (Object[] row : appointmentRepository.lockOccupiedByDoctorAndRange(
+                doctorId, Appointment.Status.SCHEDULED, start, end)) {
+            moving.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        if (moving.isEmpty()) {
+            return List.of();
+        }
+        rejectClashes(doctorId, moving, start.plusMinutes(offsetMinutes), end.plusMinutes(offsetMinutes),
+                offsetMinutes);
+        List<Long> ids = new ArrayList<>(moving.keySet());
+        appointmentRepository.shiftDateTime(ids, offsetMinutes);
+        availabilityIndex.publishChanges(List.of(doctorId));
+        eventBus.publishAfterCommit(AppointmentEvent.Type.RESCHEDULED, appointmentRepository.findAllById(ids));
+        return ids;
+    }
+
+    // Each booking blocks one slot, so a shifted start clashes with any booking staying put less than a slot away.
+    // The bookings around the target range are locked with it until the shift commits.
+    private void rejectClashes(Long doctorId, Map<Long, LocalDateTime> moving, LocalDateTime targetStart,
+                               LocalDateTime targetEnd, long offsetMinutes) {
+        Duration slot = Duration.ofMinutes(slotMinutes);
+        TreeMap<LocalDateTime, Long> staying = new TreeMap<>();
+        for (Object[] row : appointmentRepository.lockOccupiedByDoctorAndRange(
+                doctorId, Appointment.Status.SCHEDULED, targetStart.minus(slot), targetEnd.plus(slot))) {
+            if (!moving.containsKey((Long) row[0])) {
+                staying.put((LocalDateTime) row[1], (Long) row[0]);
+            }
+        }
+        List<String> clashes = new ArrayList<>();
+        moving.forEach((id, from) -> {
+            LocalDateTime to = from.plusMinutes(offsetMinutes);
+            Map.Entry<LocalDateTime, Long> other = staying.higherEntry(to.minus(slot));
+            if (other != null && other.getKey().isBefore(to.plus(slot))) {
+                clashes.add("appointment " + id + " at " + to + " clashes with appointment " + other.getValue()
+                        + " at " + other.getKey());
+            }
+        });
+        if (!clashes.isEmpty()) {
+            throw new ConflictException("Reschedule would double-book doctor " + doctorId + ": "
+                    + String.join("; ", clashes.subList(0, Math.min(clashes.size(), MAX_REPORTED_CLASHES)))
+                    + (clashes.size() > MAX_REPORTED_CLASHES
+                    ? " and " + (clashes.size() - MAX_REPORTED_CLASHES) + " more" : ""));
+        }
+    }
+
+    private List<Long> transition(List<Long> ids, Appointment.Status status, AppointmentEvent.Type type) {
+        if (!ids.isEmpty()) {
+            appointmentRepository.updateStatus(ids, status);
+            List<Appointment> changed = appointmentRepository.findAllById(ids);
+            availabilityIndex.publishChanges(changed.stream().map(a -> a.getDoctor().getId()).toList());
+            eventBus.publishAfterCommit(type, changed);
+        }
+        return ids;
+    }
+
+    public void complete(Long id) {
+        eventBus.publish(AppointmentEvent.Type.COMPLETED, setStatus(id, Appointment.Status.COMPLETED));
+    }
+
+    // Row and availability change-log entry commit together; the event goes out after
+    private Appointment setStatus(Long id, Appointment.Status status) {
+        return tx.execute(s -> {
+            Appointment appt = appointmentRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Appointment not found"));
+            appt.setStatus(status);
+            Appointment saved = appointmentRepository.save(appt);
+            availabilityIndex.publishChanges(List.of(saved.getDoctor().getId()));
+            return saved;
+        });
     }
 }
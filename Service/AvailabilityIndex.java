@@ -0,0 +1,319 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Entity.Doctor;
+import com.prad.PMS.Event.AppointmentEvent;
+import com.prad.PMS.Event.AppointmentEventBus;
+import com.prad.PMS.Repository.AppointmentRepository;
+import com.prad.PMS.Repository.DoctorRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of who is free when. Doctors are indexed by specialty and
+ * every doctor has a sorted map of occupied appointment starts; a search walks
+ * each candidate doctor's map to their first gap and merges the results with a
+ * priority queue, so no per-doctor query is needed. Kept current from the
+ * appointment event bus and DoctorService. Writers also publish the doctor id
+ * through the cache change log in their transaction, and other nodes reload
+ * that doctor when it commits; the periodic full reload is only a safety net.
+ */
+@Service
+@Lazy(false)
+public class AvailabilityIndex {
+
+    private static final String CHANGE_LOG_NAME = "availability";
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentEventBus eventBus;
+    private final CacheCoherenceService coherence;
+
+    private final Duration slot;
+    private final LocalTime dayStart;
+    private final LocalTime dayEnd;
+    private final int horizonDays;
+
+    private final Object reloadLock = new Object();
+    private volatile State state = new State();
+    private List<AppointmentEvent> pendingDuringReload;
+
+    public AvailabilityIndex(DoctorRepository doctorRepository,
+                             AppointmentRepository appointmentRepository,
+                             AppointmentEventBus eventBus,
+                             CacheCoherenceService coherence,
+                             @Value("${pms.availability.slot-minutes:30}") int slotMinutes,
+                             @Value("${pms.availability.day-start:09:00}") String dayStart,
+                             @Value("${pms.availability.day-end:17:00}") String dayEnd,
+                             @Value("${pms.availability.horizon-days:30}") int horizonDays) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.eventBus = eventBus;
+        this.coherence = coherence;
+        this.slot = Duration.ofMinutes(slotMinutes);
+        this.dayStart = LocalTime.parse(dayStart);
+        this.dayEnd = LocalTime.parse(dayEnd);
+        this.horizonDays = horizonDays;
+    }
+
+    @PostConstruct
+    public void init() {
+        eventBus.addListener(this::apply);
+        reload();
+        coherence.listen(CHANGE_LOG_NAME, key -> reloadDoctor(Long.valueOf(key)), this::reload);
+    }
+
+    @Scheduled(fixedDelayString = "${pms.availability.reload-ms:3600000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pendingDuringReload = new ArrayList<>();
+            }
+            State fresh = new State();
+            doctorRepository.findAll().forEach(fresh::putDoctor);
+            for (Object[] row : appointmentRepository.findOccupiedFrom(
+                    Appointment.Status.SCHEDULED, LocalDateTime.now().minus(slot))) {
+                fresh.schedule((Long) row[1]).put((Long) row[0], (LocalDateTime) row[2]);
+            }
+            synchronized (this) {
+                // Events published while we were reading are replayed so none are lost
+                pendingDuringReload.forEach(fresh::apply);
+                pendingDuringReload = null;
+                state = fresh;
+            }
+        }
+    }
+
+    // Another node changed this doctor or their bookings; re-read just that doctor
+    private void reloadDoctor(Long doctorId) {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pendingDuringReload = new ArrayList<>();
+            }
+            Doctor doctor = doctorRepository.findById(doctorId).orElse(null);
+            Schedule schedule = new Schedule();
+            for (Object[] row : appointmentRepository.findOccupiedByDoctorFrom(
+                    doctorId, Appointment.Status.SCHEDULED, LocalDateTime.now().minus(slot))) {
+                schedule.put((Long) row[0], (LocalDateTime) row[1]);
+            }
+            synchronized (this) {
+                State current = state;
+                current.removeDoctor(doctorId);
+                if (doctor != null) {
+                    current.putDoctor(doctor);
+                }
+                current.schedules.put(doctorId, schedule);
+                pendingDuringReload.stream()
+                        .filter(event -> doctorId.equals(event.getDoctorId()))
+                        .forEach(current::apply);
+                pendingDuringReload = null;
+            }
+        }
+    }
+
+    /**
+     * Announces that these doctors' bookings changed. Call it inside the
+     * writer's transaction; this node learns of the change from the event bus.
+     */
+    public void publishChanges(Collection<Long> doctorIds) {
+        doctorIds.stream().distinct().forEach(id -> coherence.publish(CHANGE_LOG_NAME, id.toString()));
+    }
+
+    private synchronized void apply(AppointmentEvent event) {
+        state.apply(event);
+        if (pendingDuringReload != null) {
+            pendingDuringReload.add(event);
+        }
+    }
+
+    // Both run inside DoctorService's transaction; the local index changes once it commits
+    public void onDoctorSaved(Doctor doctor) {
+        coherence.publish(CHANGE_LOG_NAME, doctor.getId().toString());
+        afterCommit(() -> {
+            synchronized (this) {
+                state.removeDoctor(doctor.getId());
+                state.putDoctor(doctor);
+            }
+        });
+    }
+
+    public void onDoctorDeleted(Long doctorId) {
+        coherence.publish(CHANGE_LOG_NAME, doctorId.toString());
+        afterCommit(() -> {
+            synchronized (this) {
+                state.removeDoctor(doctorId);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public List<Map<String, Object>> findEarliest(String specialty, LocalDateTime from, Duration duration, int limit) {
+        State current = state;
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        if (start.isBefore(from)) {
+            start = start.plusMinutes(1);
+        }
+        LocalDateTime horizon = start.plusDays(horizonDays);
+
+        // One entry per doctor holding their next free slot; the earliest overall is always on top
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        for (Long doctorId : current.doctorsWith(specialty)) {
+            LocalDateTime free = current.schedule(doctorId).nextFree(start, duration, horizon);
+            if (free != null) {
+                queue.add(new Candidate(free, doctorId));
+            }
+        }
+
+        List<Map<String, Object>> slots = new ArrayList<>();
+        while (!queue.isEmpty() && slots.size() < limit) {
+            Candidate next = queue.poll();
+            Doctor doctor = current.doctors.get(next.doctorId());
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("doctorId", next.doctorId());
+            m.put("doctorName", doctor != null ? doctor.getName() : null);
+            m.put("specialty", doctor != null ? doctor.getSpecialty() : null);
+            m.put("start", next.start());
+            m.put("end", next.start().plus(duration));
+            slots.add(m);
+
+            LocalDateTime after = current.schedule(next.doctorId())
+                    .nextFree(next.start().plus(duration), duration, horizon);
+            if (after != null) {
+                queue.add(new Candidate(after, next.doctorId()));
+            }
+        }
+        return slots;
+    }
+
+    private record Candidate(LocalDateTime start, Long doctorId) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate o) {
+            int c = start.compareTo(o.start);
+            return c != 0 ? c : doctorId.compareTo(o.doctorId);
+        }
+    }
+
+    private final class State {
+        private final Map<Long, Doctor> doctors = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> bySpecialty = new ConcurrentHashMap<>();
+        private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+
+        void putDoctor(Doctor doctor) {
+            doctors.put(doctor.getId(), doctor);
+            bySpecialty.computeIfAbsent(key(doctor.getSpecialty()), k -> ConcurrentHashMap.newKeySet())
+                    .add(doctor.getId());
+        }
+
+        void removeDoctor(Long doctorId) {
+            Doctor old = doctors.remove(doctorId);
+            if (old != null) {
+                Set<Long> ids = bySpecialty.get(key(old.getSpecialty()));
+                if (ids != null) {
+                    ids.remove(doctorId);
+                }
+            }
+        }
+
+        Set<Long> doctorsWith(String specialty) {
+            return bySpecialty.getOrDefault(key(specialty), Set.of());
+        }
+
+        Schedule schedule(Long doctorId) {
+            return schedules.computeIfAbsent(doctorId, id -> new Schedule());
+        }
+
+        void apply(AppointmentEvent event) {
+            if (event.getDoctorId() == null || event.getAppointmentId() == null) {
+                return;
+            }
+            Schedule schedule = schedule(event.getDoctorId());
+            if (event.getStatus() == Appointment.Status.SCHEDULED) {
+                schedule.put(event.getAppointmentId(), event.getDateTime()); // created or moved
+            } else {
+                schedule.remove(event.getAppointmentId());
+            }
+        }
+
+        private String key(String specialty) {
+            return specialty == null ? "" : specialty.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Occupied starts for one doctor; each appointment blocks [start, start + slot)
+    private final class Schedule {
+        private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        private final Map<Long, LocalDateTime> byAppointment = new HashMap<>();
+
+        synchronized void put(Long appointmentId, LocalDateTime start) {
+            remove(appointmentId);
+            byAppointment.put(appointmentId, start);
+            starts.merge(start, 1, Integer::sum);
+        }
+
+        synchronized void remove(Long appointmentId) {
+            LocalDateTime old = byAppointment.remove(appointmentId);
+            if (old != null) {
+                starts.computeIfPresent(old, (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+
+        synchronized LocalDateTime nextFree(LocalDateTime from, Duration duration, LocalDateTime horizon) {
+            LocalDateTime candidate = withinHours(from, duration);
+            while (candidate != null && candidate.isBefore(horizon)) {
+                // First booking that could overlap [candidate, candidate + duration)
+                LocalDateTime clash = starts.higherKey(candidate.minus(slot));
+                if (clash == null || !clash.isBefore(candidate.plus(duration))) {
+                    return candidate;
+                }
+                candidate = withinHours(clash.plus(slot), duration);
+            }
+            return null;
+        }
+    }
+
+    private LocalDateTime withinHours(LocalDateTime t, Duration duration) {
+        if (Duration.between(dayStart, dayEnd).compareTo(duration) < 0) {
+            return null; // never fits in a working day
+        }
+        if (t.toLocalTime().isBefore(dayStart)) {
+            return t.toLocalDate().atTime(dayStart);
+        }
+        if (t.plus(duration).isAfter(t.toLocalDate().atTime(dayEnd))) {
+            return t.toLocalDate().plusDays(1).atTime(dayStart);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,233 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.CacheChangeLog;
+import com.prad.PMS.Repository.CacheChangeLogRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps node-local caches coherent across instances without a broker. Every
+ * invalidation is appended to cache_change_log; each node tails the table by
+ * id and evicts what other nodes changed. Ids can commit out of order, so an
+ * id skipped below the newest one seen is remembered as a gap and looked up
+ * again on every poll until it turns up or gap-timeout-ms passes (a rolled
+ * back insert leaves a gap that never fills). Cache entries also expire after
+ * entry-ttl-ms, so one that is missed regardless is stale for a bounded time.
+ * If polling stops working for longer than the staleness bound, the caches
+ * switch to pass-through and every listener resyncs once it recovers.
+ * Entries are written in the same transaction as the change they describe.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class CacheCoherenceService {
+
+    private final CacheChangeLogRepository repository;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+    // Ids skipped below lastSeenId, with when they were first missed
+    private final Map<Long, Long> gaps = new ConcurrentHashMap<>();
+
+    @Value("${pms.coherence.max-staleness-ms:5000}")
+    private long maxStalenessMs;
+
+    // Longer than any transaction that writes to the change log should stay open
+    @Value("${pms.coherence.gap-timeout-ms:60000}")
+    private long gapTimeoutMs;
+
+    @Value("${pms.coherence.max-gaps:10000}")
+    private int maxGaps;
+
+    @Value("${pms.coherence.entry-ttl-ms:${pms.coherence.max-staleness-ms:5000}}")
+    private long entryTtlMs;
+
+    @Value("${pms.coherence.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${pms.coherence.retention-ms:3600000}")
+    private long retentionMs;
+
+    private volatile long lastSeenId;
+    private volatile long lastPollMillis;
+    private volatile long lastLagMs;
+    private volatile boolean resyncNeeded;
+
+    public CacheCoherenceService(CacheChangeLogRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Local state starts from the database, so older entries are irrelevant
+        lastSeenId = repository.findMaxId();
+        lastPollMillis = System.currentTimeMillis();
+    }
+
+    public <V> CoherentCache<V> cache(String name, int maxEntries) {
+        CoherentCache<V> cache = new CoherentCache<>(name, maxEntries, this);
+        listen(name, cache::evictLocal, cache::clearLocal);
+        return cache;
+    }
+
+    /**
+     * For node-local state other than caches (indexes, filters). onChange gets
+     * the key of every entry another node published under this name; onResync
+     * runs when polling recovers after being down longer than the staleness
+     * bound, and should reload the state from the database.
+     */
+    public void listen(String name, Consumer<String> onChange, Runnable onResync) {
+        if (listeners.putIfAbsent(name, new Listener(onChange, onResync)) != null) {
+            throw new IllegalStateException("Change log name already registered: " + name);
+        }
+    }
+
+    /**
+     * Appends an entry for other nodes. Joins the caller's transaction, so the
+     * entry commits (or rolls back) together with the write it describes.
+     * Updating this node's own state is left to the caller.
+     */
+    public void publish(String name, String key) {
+        repository.save(new CacheChangeLog(null, name, key, nodeId, Instant.now()));
+    }
+
+    boolean isFresh() {
+        return System.currentTimeMillis() - lastPollMillis <= maxStalenessMs;
+    }
+
+    long getEntryTtlMs() {
+        return entryTtlMs;
+    }
+
+    @Scheduled(fixedDelayString = "${pms.coherence.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            recheckGaps();
+            List<CacheChangeLog> batch;
+            do {
+                batch = repository.findAfter(lastSeenId, PageRequest.of(0, batchSize));
+                for (CacheChangeLog entry : batch) {
+                    advance(entry);
+                }
+            } while (batch.size() == batchSize);
+
+            lastPollMillis = System.currentTimeMillis();
+            if (resyncNeeded) {
+                resyncNeeded = false;
+                listeners.forEach((name, listener) -> run(name, listener.onResync()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache change log poll failed, last success {} ms ago",
+                    System.currentTimeMillis() - lastPollMillis, e);
+            if (!isFresh()) {
+                resyncNeeded = true;
+            }
+        }
+    }
+
+    // Entries arrive in id order; every id jumped over may still be in an open transaction
+    private void advance(CacheChangeLog entry) {
+        long now = System.currentTimeMillis();
+        for (long missing = lastSeenId + 1; missing < entry.getId(); missing++) {
+            if (gaps.size() >= maxGaps) {
+                log.warn("More than {} change log gaps, not tracking {} to {}; cache entries still expire",
+                        maxGaps, missing, entry.getId() - 1);
+                break;
+            }
+            gaps.putIfAbsent(missing, now);
+        }
+        lastSeenId = entry.getId();
+        apply(entry);
+    }
+
+    private void recheckGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        long expired = System.currentTimeMillis() - gapTimeoutMs;
+        gaps.values().removeIf(since -> since < expired);
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<CacheChangeLog> found =
+                    new ArrayList<>(repository.findAllById(ids.subList(from, Math.min(ids.size(), from + batchSize))));
+            found.sort(Comparator.comparing(CacheChangeLog::getId));
+            for (CacheChangeLog entry : found) {
+                if (gaps.remove(entry.getId()) != null) {
+                    apply(entry);
+                }
+            }
+        }
+    }
+
+    private void apply(CacheChangeLog entry) {
+        if (nodeId.equals(entry.getNodeId())) {
+            return; // applied locally when it was written
+        }
+        Listener listener = listeners.get(entry.getCacheName());
+        if (listener != null) {
+            run(entry.getCacheName(), () -> listener.onChange().accept(entry.getEntityKey()));
+        }
+        lastLagMs = Duration.between(entry.getCreatedAt(), Instant.now()).toMillis();
+        if (lastLagMs > maxStalenessMs) {
+            log.warn("Cache invalidation {} applied {} ms after it was written", entry.getId(), lastLagMs);
+        }
+    }
+
+    // One failing listener must not stop the others or stall the poll
+    private static void run(String name, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("Change log listener {} failed", name, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pms.coherence.purge-interval-ms:600000}")
+    public void purge() {
+        repository.deleteOlderThan(Instant.now().minusMillis(retentionMs));
+    }
+
+    // Staleness figures: how late the last remote invalidation was applied, and how old our view is
+    public long getLastLagMs() {
+        return lastLagMs;
+    }
+
+    public long getMillisSinceLastPoll() {
+        return System.currentTimeMillis() - lastPollMillis;
+    }
+
+    public long getLastSeenId() {
+        return lastSeenId;
+    }
+
+    public int getOpenGaps() {
+        return gaps.size();
+    }
+
+    public Set<String> getListenerNames() {
+        return new TreeSet<>(listeners.keySet());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private record Listener(Consumer<String> onChange, Runnable onResync) {
+    }
+}
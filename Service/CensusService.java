@@ -0,0 +1,318 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Exception.BadRequestException;
+import com.prad.PMS.Repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+
+/**
+ * Daily occupancy (patients in house at the end of each day) overall, by
+ * disease or by doctor. A stay counts from its admission day up to, not
+ * including, its discharge day; a same-day discharge counts once.
+ *
+ * The trailing 366 days are kept as difference arrays, one +1/-1 pair per
+ * stay, so a patient write is O(1) and a query is one prefix sum over the
+ * days asked for. Ranges outside that window are answered by a sweep: stays
+ * are bucketed by day into difference arrays in parallel partitions, the
+ * partitions are added together and swept once.
+ *
+ * The window is built and rolled over to a new day by a scheduled job, never
+ * on a request; until it is ready, queries are answered by the sweep. Patient
+ * writes publish the patient id through the cache change log in their
+ * transaction, and other nodes re-read that patient's stay.
+ */
+@Service
+@Lazy(false)
+public class CensusService {
+
+    public enum GroupBy { NONE, DISEASE, DOCTOR }
+
+    private static final int WINDOW_DAYS = 366;
+    private static final int MAX_RANGE_DAYS = 3660;
+    private static final String CHANGE_LOG_NAME = "census";
+
+    private final PatientRepository repository;
+    private final CacheCoherenceService coherence;
+    private final Object buildLock = new Object();
+
+    private Window window;
+    private List<Map.Entry<Long, Stay>> pendingDuringBuild;
+
+    public CensusService(PatientRepository repository, CacheCoherenceService coherence) {
+        this.repository = repository;
+        this.coherence = coherence;
+    }
+
+    @PostConstruct
+    public void init() {
+        coherence.listen(CHANGE_LOG_NAME, key -> reloadPatient(Long.valueOf(key)), this::rebuild);
+    }
+
+    public Map<String, Object> series(LocalDate from, LocalDate to, GroupBy groupBy) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_RANGE_DAYS) {
+            throw new BadRequestException("Range is limited to " + MAX_RANGE_DAYS + " days");
+        }
+
+        Map<String, int[]> series = null;
+        synchronized (this) {
+            if (window != null && window.covers(from, to)) {
+                series = window.series(from, days, groupBy);
+            }
+        }
+        if (series == null) {
+            series = sweep(from, days, groupBy);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("groupBy", groupBy);
+        result.put("series", series);
+        return result;
+    }
+
+    // Called by PatientServiceImpl inside its transaction; the local window changes once it commits
+    public void onSaved(Patient patient) {
+        Long id = patient.getId();
+        Stay stay = Stay.of(patient);
+        coherence.publish(CHANGE_LOG_NAME, id.toString());
+        afterCommit(() -> {
+            synchronized (this) {
+                apply(id, stay);
+            }
+        });
+    }
+
+    public void onDeleted(Long patientId) {
+        coherence.publish(CHANGE_LOG_NAME, patientId.toString());
+        afterCommit(() -> {
+            synchronized (this) {
+                apply(patientId, null);
+            }
+        });
+    }
+
+    private void reloadPatient(Long patientId) {
+        List<Object[]> rows = repository.findStayById(patientId);
+        Stay stay = rows.isEmpty() ? null : Stay.of(rows.get(0));
+        synchronized (this) {
+            apply(patientId, stay);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void apply(Long patientId, Stay stay) {
+        if (window != null) {
+            window.apply(patientId, stay);
+        }
+        if (pendingDuringBuild != null) {
+            pendingDuringBuild.add(new AbstractMap.SimpleImmutableEntry<>(patientId, stay));
+        }
+    }
+
+    // Builds the window at startup and whenever the day has moved on; requests never wait for it
+    @Scheduled(fixedDelayString = "${pms.census.check-ms:60000}")
+    public void rollOver() {
+        LocalDate today = LocalDate.now();
+        synchronized (this) {
+            if (window != null && window.last.equals(today)) {
+                return;
+            }
+        }
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (buildLock) {
+            LocalDate today = LocalDate.now();
+            synchronized (this) {
+                pendingDuringBuild = new ArrayList<>();
+            }
+            Window fresh = new Window(today.minusDays(WINDOW_DAYS - 1), today);
+            try {
+                for (Object[] row : repository.findStaysOverlapping(fresh.first, today.plusDays(1))) {
+                    fresh.apply((Long) row[0], Stay.of(row));
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringBuild = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                // Writes that raced with the read are replayed; apply() is idempotent per patient
+                pendingDuringBuild.forEach(e -> fresh.apply(e.getKey(), e.getValue()));
+                pendingDuringBuild = null;
+                window = fresh;
+            }
+        }
+    }
+
+    private Map<String, int[]> sweep(LocalDate from, int days, GroupBy groupBy) {
+        List<Object[]> rows = repository.findStaysOverlapping(from, from.plusDays(days));
+        Map<String, int[]> diffs = rows.parallelStream()
+                .map(Stay::of)
+                .collect(Collector.<Stay, Map<String, int[]>>of(
+                        HashMap::new,
+                        (acc, stay) -> accumulate(acc, stay, groupBy, from, days, 1),
+                        CensusService::merge));
+        Map<String, int[]> series = new TreeMap<>();
+        diffs.forEach((key, diff) -> series.put(key, prefixSum(diff, 0, days)));
+        return series;
+    }
+
+    private static Map<String, int[]> merge(Map<String, int[]> a, Map<String, int[]> b) {
+        b.forEach((key, diff) -> a.merge(key, diff, (x, y) -> {
+            for (int i = 0; i < x.length; i++) {
+                x[i] += y[i];
+            }
+            return x;
+        }));
+        return a;
+    }
+
+    // Adds one stay to a difference array indexed from origin, clipped to [0, days)
+    private static void accumulate(Map<String, int[]> diffs, Stay stay, GroupBy groupBy,
+                                   LocalDate origin, int days, int sign) {
+        if (stay == null) {
+            return;
+        }
+        int start = (int) Math.max(0, ChronoUnit.DAYS.between(origin, stay.admitted()));
+        int end = stay.end() == null ? days : (int) Math.min(days, ChronoUnit.DAYS.between(origin, stay.end()));
+        if (start >= end) {
+            return;
+        }
+        int[] diff = diffs.computeIfAbsent(stay.key(groupBy), k -> new int[days + 1]);
+        diff[start] += sign;
+        diff[end] -= sign;
+    }
+
+    private static int[] prefixSum(int[] diff, int offset, int length) {
+        int[] counts = new int[length];
+        int running = 0;
+        for (int i = 0; i < offset + length; i++) {
+            running += diff[i];
+            if (i >= offset) {
+                counts[i - offset] = running;
+            }
+        }
+        return counts;
+    }
+
+    private record Stay(LocalDate admitted, LocalDate end, String disease, String doctor) {
+
+        static Stay of(Patient p) {
+            return of(p.getAdmittedDate(), p.getDischargeDate(), p.isAdmitted(), p.getDisease(),
+                    p.getDoctor() != null ? p.getDoctor().getId() : null);
+        }
+
+        // Row layout of PatientRepository.findStaysOverlapping
+        static Stay of(Object[] row) {
+            return of((LocalDate) row[1], (LocalDate) row[2], (Boolean) row[3], (String) row[4], (Long) row[5]);
+        }
+
+        private static Stay of(LocalDate admitted, LocalDate discharged, boolean inHouse, String disease, Long doctorId) {
+            if (admitted == null) {
+                return null;
+            }
+            LocalDate end;
+            if (discharged != null) {
+                end = discharged.isAfter(admitted) ? discharged : admitted.plusDays(1);
+            } else {
+                end = inHouse ? null : admitted.plusDays(1); // still in: open-ended
+            }
+            String diseaseKey = disease == null ? "unknown" : disease.trim().toLowerCase(Locale.ROOT);
+            return new Stay(admitted, end, diseaseKey, doctorId == null ? "unassigned" : doctorId.toString());
+        }
+
+        String key(GroupBy groupBy) {
+            return switch (groupBy) {
+                case NONE -> "total";
+                case DISEASE -> disease;
+                case DOCTOR -> doctor;
+            };
+        }
+    }
+
+    // Difference arrays for [first, last], one per group for every grouping; guarded by the service
+    private static final class Window {
+        private final LocalDate first;
+        private final LocalDate last;
+        private final int days;
+        private final Map<GroupBy, Map<String, int[]>> diffs = new HashMap<>();
+        private final Map<Long, Stay> stays = new HashMap<>();
+
+        Window(LocalDate first, LocalDate last) {
+            this.first = first;
+            this.last = last;
+            this.days = (int) ChronoUnit.DAYS.between(first, last) + 1;
+            for (GroupBy g : GroupBy.values()) {
+                diffs.put(g, new HashMap<>());
+            }
+        }
+
+        boolean covers(LocalDate from, LocalDate to) {
+            return !from.isBefore(first) && !to.isAfter(last);
+        }
+
+        void apply(Long patientId, Stay stay) {
+            Stay old = stay == null ? stays.remove(patientId) : stays.put(patientId, stay);
+            add(old, -1);
+            add(stay, 1);
+        }
+
+        private void add(Stay stay, int sign) {
+            for (GroupBy g : GroupBy.values()) {
+                accumulate(diffs.get(g), stay, g, first, days, sign);
+            }
+        }
+
+        Map<String, int[]> series(LocalDate from, int length, GroupBy groupBy) {
+            int offset = (int) ChronoUnit.DAYS.between(first, from);
+            Map<String, int[]> series = new TreeMap<>();
+            diffs.get(groupBy).forEach((key, diff) -> {
+                int[] counts = prefixSum(diff, offset, length);
+                for (int c : counts) {
+                    if (c != 0) {
+                        series.put(key, counts);
+                        break;
+                    }
+                }
+            });
+            return series;
+        }
+    }
+}
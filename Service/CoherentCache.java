@@ -0,0 +1,93 @@
+package com.prad.PMS.Service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Node-local cache whose entries are invalidated cluster-wide through
+ * CacheCoherenceService. Create instances with CacheCoherenceService.cache().
+ * Entries also expire after pms.coherence.entry-ttl-ms, which bounds how long
+ * a missed invalidation can leave one stale.
+ */
+public class CoherentCache<V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final CacheCoherenceService coherence;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load that raced with one is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    CoherentCache(String name, int maxEntries, CacheCoherenceService coherence) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.coherence = coherence;
+    }
+
+    public V get(String key, Function<String, V> loader) {
+        if (!coherence.isFresh()) {
+            // Lost contact with the change log for too long: serve straight from the database
+            entries.clear();
+            return loader.apply(key);
+        }
+        long now = System.currentTimeMillis();
+        Entry<V> cached = entries.get(key);
+        if (cached != null) {
+            if (now < cached.expiresAt()) {
+                return cached.value();
+            }
+            entries.remove(key, cached);
+        }
+        long before = generation.get();
+        V loaded = loader.apply(key);
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now >= e.expiresAt());
+        }
+        if (loaded != null && entries.size() < maxEntries && generation.get() == before) {
+            entries.putIfAbsent(key, new Entry<>(loaded, now + coherence.getEntryTtlMs()));
+        }
+        return loaded;
+    }
+
+    // Call from inside the write's transaction: tells the other nodes and evicts here once committed
+    public void invalidate(String key) {
+        coherence.publish(name, key);
+        evictLocal(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again after commit, in case a concurrent load read the old row before it
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(key);
+                }
+            });
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    void evictLocal(String key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    void clearLocal() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
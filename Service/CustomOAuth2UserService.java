@@ -7,22 +7,31 @@ import com.prad.PMS.Entity.User;
 import com.prad.PMS.Repository.RoleRepository;
 import com.prad.PMS.Repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
+    private static final long REGISTRATION_WAIT_MS = 5000;
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final UniquenessIndex uniquenessIndex;
+    private final TransactionTemplate tx;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -31,18 +40,13 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         String email = oauthUser.getAttribute("email");
         String name = oauthUser.getAttribute("name");
 
-        // check if user exists
-        User user = userRepository.findByEmail(email).orElseGet(() -> {
-            Role role = roleRepository.findByName(RoleName.ROLE_PATIENT)
-                    .orElseThrow(() -> new RuntimeException("ROLE_PATIENT not found"));
-
-            User newUser = new User();
-            newUser.setEmail(email);
-            newUser.setUsername(name);
-            newUser.setProvider(AuthProvider.valueOf("GOOGLE"));
-            newUser.setRoles(Set.of(role));
-            return userRepository.save(newUser);
-        });
+        // Always asked of the table: an index miss can be an account created on another node moments ago
+        User user = userRepository.findByEmail(email)
+                .map(found -> {
+                    uniquenessIndex.learn(UniquenessIndex.Key.USER_EMAIL, found.getEmail(), found.getId());
+                    return found;
+                })
+                .orElseGet(() -> register(email, name));
 
         return new DefaultOAuth2User(
                 user.getRoles().stream()
@@ -52,4 +56,56 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                 "email"
         );
     }
+
+    private User register(String email, String name) {
+        Role role = roleRepository.findByName(RoleName.ROLE_PATIENT)
+                .orElseThrow(() -> new RuntimeException("ROLE_PATIENT not found"));
+
+        User newUser = new User();
+        newUser.setEmail(email);
+        newUser.setUsername(name);
+        newUser.setProvider(AuthProvider.valueOf("GOOGLE"));
+        newUser.setRoles(Set.of(role));
+
+        if (!uniquenessIndex.reserve(UniquenessIndex.Key.USER_EMAIL, email)) {
+            // A concurrent login for the same account on this node is inserting it
+            return awaitRegistered(email);
+        }
+        try {
+            return tx.execute(status -> {
+                User saved = userRepository.save(newUser);
+                uniquenessIndex.confirm(UniquenessIndex.Key.USER_EMAIL, saved.getEmail(), saved.getId());
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Registered on another node meanwhile; the unique key made this insert wait for that commit
+            uniquenessIndex.releaseIfPending(UniquenessIndex.Key.USER_EMAIL, email);
+            return userRepository.findByEmail(email).orElseThrow(() -> e);
+        } catch (RuntimeException e) {
+            uniquenessIndex.releaseIfPending(UniquenessIndex.Key.USER_EMAIL, email);
+            throw e;
+        }
+    }
+
+    // The winner holds the reservation until its insert has committed, so wait for the row rather than read too early
+    private User awaitRegistered(String email) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REGISTRATION_WAIT_MS);
+        while (true) {
+            Optional<User> user = userRepository.findByEmail(email);
+            if (user.isPresent()) {
+                return user.get();
+            }
+            // Reservation gone without a row: the other attempt failed
+            if (!uniquenessIndex.contains(UniquenessIndex.Key.USER_EMAIL, email) || System.nanoTime() > deadline) {
+                throw new OAuth2AuthenticationException(new OAuth2Error("registration_incomplete"),
+                        "Account for " + email + " is still being created, please sign in again");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OAuth2AuthenticationException(new OAuth2Error("registration_incomplete"), "Interrupted");
+            }
+        }
+    }
 }
@@ -1,32 +1,52 @@
 package com.prad.PMS.Service;
 
 import com.prad.PMS.Entity.Doctor;
+import com.prad.PMS.Exception.BadRequestException;
 import com.prad.PMS.Repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final AvailabilityIndex availabilityIndex;
 
+    @Transactional
     public Doctor save(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        availabilityIndex.onDoctorSaved(saved);
+        return saved;
     }
 
     public List<Doctor> getAll() {
         return doctorRepository.findAll();
     }
 
+    public List<Map<String, Object>> findAvailability(String specialty, LocalDateTime from,
+                                                      Duration duration, int limit) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new BadRequestException("duration must be positive");
+        }
+        return availabilityIndex.findEarliest(specialty, from != null ? from : LocalDateTime.now(),
+                duration, Math.max(1, Math.min(limit, 100)));
+    }
+
     public Doctor getById(Long id) {
         return doctorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
     }
 
+    @Transactional
     public void delete(Long id) {
         doctorRepository.deleteById(id);
+        availabilityIndex.onDoctorDeleted(id);
     }
 }
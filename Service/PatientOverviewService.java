@@ -0,0 +1,184 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Entity.Appointment;
+import com.prad.PMS.Entity.ArchivedAppointment;
+import com.prad.PMS.Entity.Doctor;
+import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Exception.ResourceNotFoundException;
+import com.prad.PMS.Monitoring.RequestMetrics;
+import com.prad.PMS.Repository.AppointmentRepository;
+import com.prad.PMS.Repository.ArchivedAppointmentRepository;
+import com.prad.PMS.Repository.DoctorRepository;
+import com.prad.PMS.Repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the clinician's one-call view of a patient. The patient, appointment
+ * history (archived appointments included), upcoming appointments and assigned
+ * doctor are fetched at the same time, all sharing one deadline. Sections
+ * run on virtual threads, or on platform threads when
+ * spring.threads.virtual.enabled=false so guardrails can measure what they
+ * allocate. A section that misses the deadline is cancelled and reported as
+ * TIMED_OUT; the other sections are still returned.
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientOverviewService {
+
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archiveRepository;
+    private final DoctorRepository doctorRepository;
+
+    private ExecutorService executor;
+
+    @Value("${pms.overview.section-timeout-ms:800}")
+    private long sectionTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() {
+        executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("overview-", 0).factory());
+    }
+
+    public Map<String, Object> getOverview(Long patientId) throws ResourceNotFoundException {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Future<?>> tasks = new LinkedHashMap<>();
+        tasks.put("patient", submit(() -> patientRepository.findById(patientId).map(this::patientSummary)));
+        tasks.put("doctor", submit(() -> doctorRepository.findByPatients_Id(patientId).map(this::doctorSummary)));
+        tasks.put("history", submit(() -> history(patientId, now)));
+        tasks.put("upcoming", submit(() -> appointmentSummaries(
+                appointmentRepository.findByPatientIdAndStatusAndDateTimeGreaterThanEqualOrderByDateTimeAsc(
+                        patientId, Appointment.Status.SCHEDULED, now))));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, Object> overview = new LinkedHashMap<>();
+        Map<String, String> sections = new LinkedHashMap<>();
+
+        tasks.forEach((name, future) -> {
+            try {
+                Object value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                overview.put(name, value instanceof Optional<?> opt ? opt.orElse(null) : value);
+                sections.put(name, "OK");
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                overview.put(name, null);
+                sections.put(name, "TIMED_OUT");
+            } catch (ExecutionException e) {
+                overview.put(name, null);
+                sections.put(name, "FAILED");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tasks.values().forEach(f -> f.cancel(true));
+                throw new RuntimeException(e);
+            }
+        });
+
+        if ("OK".equals(sections.get("patient")) && overview.get("patient") == null) {
+            throw new ResourceNotFoundException("Patient not found with id " + patientId);
+        }
+        overview.put("sections", sections);
+        return overview;
+    }
+
+    // Allocation on the section's thread counts towards the request's RequestMetrics
+    private <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(RequestMetrics.forked(task));
+    }
+
+    // Flat maps rather than entities: nothing lazy is touched after the section's thread is done
+    private Map<String, Object> patientSummary(Patient p) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", p.getId());
+        m.put("name", p.getName());
+        m.put("age", p.getAge());
+        m.put("gender", p.getGender());
+        m.put("disease", p.getDisease());
+        m.put("admitted", p.isAdmitted());
+        m.put("admittedDate", p.getAdmittedDate());
+        m.put("dischargeDate", p.getDischargeDate());
+        m.put("email", p.getEmail());
+        m.put("phone", p.getPhone());
+        m.put("address", p.getAddress());
+        return m;
+    }
+
+    private Map<String, Object> doctorSummary(Doctor d) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", d.getId());
+        m.put("name", d.getName());
+        m.put("specialty", d.getSpecialty());
+        m.put("email", d.getEmail());
+        m.put("phone", d.getPhone());
+        return m;
+    }
+
+    private List<Map<String, Object>> appointmentSummaries(List<Appointment> appointments) {
+        return appointments.stream().map(a -> appointmentSummary(a.getId(), a.getDateTime(), a.getReason(),
+                a.getStatus(), a.getDoctor() != null ? a.getDoctor().getId() : null,
+                a.getDoctor() != null ? a.getDoctor().getName() : null)).toList();
+    }
+
+    // Live rows plus whatever the archiver has moved out, newest first
+    private List<Map<String, Object>> history(Long patientId, LocalDateTime now) {
+        List<Map<String, Object>> history = new ArrayList<>(appointmentSummaries(
+                appointmentRepository.findByPatientIdAndDateTimeBeforeOrderByDateTimeDesc(patientId, now)));
+        List<ArchivedAppointment> archived = archiveRepository.findByPatientIdOrderByDateTimeDesc(patientId);
+        if (archived.isEmpty()) {
+            return history;
+        }
+        Map<Long, String> doctorNames = new HashMap<>();
+        doctorRepository.findAllById(archived.stream().map(ArchivedAppointment::getDoctorId).distinct().toList())
+                .forEach(d -> doctorNames.put(d.getId(), d.getName()));
+        for (ArchivedAppointment a : archived) {
+            history.add(appointmentSummary(a.getId(), a.getDateTime(), a.getReason(), a.getStatus(),
+                    a.getDoctorId(), doctorNames.get(a.getDoctorId())));
+        }
+        // Scheduled rows are never archived, so an old missed one can sit between archived ones
+        history.sort(Comparator.comparing((Map<String, Object> m) -> (LocalDateTime) m.get("dateTime")).reversed());
+        return history;
+    }
+
+    private static Map<String, Object> appointmentSummary(Long id, LocalDateTime dateTime, String reason,
+                                                          Appointment.Status status, Long doctorId,
+                                                          String doctorName) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", id);
+        m.put("dateTime", dateTime);
+        m.put("reason", reason);
+        m.put("status", status);
+        m.put("doctorId", doctorId);
+        m.put("doctorName", doctorName);
+        return m;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
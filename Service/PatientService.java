@@ -2,6 +2,7 @@ package com.prad.PMS.Service;
 
 import com.prad.PMS.Entity.Patient;
 import com.prad.PMS.Exception.ResourceNotFoundException;
+import com.prad.PMS.Projection.ProjectedRows;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,6 +12,8 @@ public interface PatientService {
 
     Page<Patient> getAll(Pageable pageable);
 
+    ProjectedRows getAll(Pageable pageable, String fields);
+
     Patient getById(Long id);
 
     Patient create(Patient patient);
@@ -1,14 +1,22 @@
 package com.prad.PMS.Service;
 
 import com.prad.PMS.Entity.Patient;
+import com.prad.PMS.Projection.ProjectedRows;
+import com.prad.PMS.Projection.ProjectionSchema;
 import com.prad.PMS.Repository.PatientRepository;
+import com.prad.PMS.Repository.ProjectionRepository;
+import com.prad.PMS.Exception.ConflictException;
 import com.prad.PMS.Exception.ResourceNotFoundException;
+import com.prad.PMS.Service.UniquenessIndex.Key;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class PatientServiceImpl implements PatientService {
@@ -16,11 +24,25 @@ public class PatientServiceImpl implements PatientService {
     @Autowired
     private PatientRepository repository;
 
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private CensusService censusService;
+
     @Override
     public Page<Patient> getAll(Pageable pageable) {
         return repository.findAll(pageable);
     }
 
+    @Override
+    public ProjectedRows getAll(Pageable pageable, String fields) {
+        return projectionRepository.findPage(ProjectionSchema.PATIENT.fieldSet(fields), null, Map.of(), pageable);
+    }
+
     @Override
     public Patient getById(Long id) {
         try {
@@ -31,24 +53,73 @@ public class PatientServiceImpl implements PatientService {
         }
     }
 
+    // Row and uniqueness change-log entries commit together; the local index follows the commit
     @Override
+    @Transactional
     public Patient create(Patient patient) {
-        return repository.save(patient);
+        reserveContact(patient, null);
+        try {
+            Patient saved = repository.save(patient);
+            uniquenessIndex.confirm(Key.PATIENT_EMAIL, saved.getEmail(), saved.getId());
+            uniquenessIndex.confirm(Key.PATIENT_PHONE, saved.getPhone(), saved.getId());
+            censusService.onSaved(saved);
+            return saved;
+        } catch (RuntimeException e) {
+            uniquenessIndex.releaseIfPending(Key.PATIENT_EMAIL, patient.getEmail());
+            uniquenessIndex.releaseIfPending(Key.PATIENT_PHONE, patient.getPhone());
+            throw e;
+        }
     }
 
     @Override
+    @Transactional
     public Patient update(Long id, Patient updated) {
         Patient existing = getById(id);
-        updated.setId(existing.getId());
-        return repository.save(updated);
+        String oldEmail = existing.getEmail();
+        String oldPhone = existing.getPhone();
+
+        reserveContact(updated, id);
+        try {
+            updated.setId(existing.getId());
+            Patient saved = repository.save(updated);
+            moveKey(Key.PATIENT_EMAIL, oldEmail, saved.getEmail(), id);
+            moveKey(Key.PATIENT_PHONE, oldPhone, saved.getPhone(), id);
+            censusService.onSaved(saved);
+            return saved;
+        } catch (RuntimeException e) {
+            uniquenessIndex.releaseIfPending(Key.PATIENT_EMAIL, updated.getEmail());
+            uniquenessIndex.releaseIfPending(Key.PATIENT_PHONE, updated.getPhone());
+            throw e;
+        }
     }
 
     @Override
+    @Transactional
     public void delete(Long id) throws ResourceNotFoundException {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("Patient not found with id " + id);
-        }
+        Patient existing = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id " + id));
         repository.deleteById(id);
+        uniquenessIndex.release(Key.PATIENT_EMAIL, existing.getEmail());
+        uniquenessIndex.release(Key.PATIENT_PHONE, existing.getPhone());
+        censusService.onDeleted(id);
+    }
+
+    // Holds email and phone for this patient, or fails with 409 without touching the database
+    private void reserveContact(Patient patient, Long ownerId) {
+        if (!uniquenessIndex.reserveFor(Key.PATIENT_EMAIL, patient.getEmail(), ownerId)) {
+            throw new ConflictException("Email already in use");
+        }
+        if (!uniquenessIndex.reserveFor(Key.PATIENT_PHONE, patient.getPhone(), ownerId)) {
+            uniquenessIndex.releaseIfPending(Key.PATIENT_EMAIL, patient.getEmail());
+            throw new ConflictException("Phone number already in use");
+        }
+    }
+
+    private void moveKey(Key key, String oldValue, String newValue, Long id) {
+        uniquenessIndex.confirm(key, newValue, id);
+        if (!Objects.equals(UniquenessIndex.normalise(key, oldValue), UniquenessIndex.normalise(key, newValue))) {
+            uniquenessIndex.release(key, oldValue);
+        }
     }
 
     @Override
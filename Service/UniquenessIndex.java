@@ -0,0 +1,190 @@
+package com.prad.PMS.Service;
+
+import com.prad.PMS.Repository.PatientRepository;
+import com.prad.PMS.Repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of normalised user emails and patient emails/phones, so
+ * uniqueness checks do not need a query. Keys are reserved atomically before
+ * the insert and confirmed or released afterwards. Confirmations and releases
+ * go through the cache change log in the writer's transaction, so other nodes
+ * learn about them within one poll interval; until then the unique constraints
+ * in the database are the backstop, and a negative answer from contains() only
+ * means "probably absent".
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class UniquenessIndex {
+
+    public enum Key {
+        USER_EMAIL,
+        PATIENT_EMAIL,
+        PATIENT_PHONE
+    }
+
+    private static final String CHANGE_LOG_NAME = "uniqueness";
+    // cache_change_log.entity_key is varchar(255); longer entries ask other nodes to reload instead
+    private static final int MAX_ENTRY_LENGTH = 255;
+    private static final String RELOAD = "*";
+    private static final Long PENDING = -1L;
+
+    private final UserRepository userRepository;
+    private final PatientRepository patientRepository;
+    private final CacheCoherenceService coherence;
+
+    private volatile Map<Key, Map<String, Long>> index;
+
+    @PostConstruct
+    public void init() {
+        load();
+        coherence.listen(CHANGE_LOG_NAME, this::applyRemote, this::load);
+    }
+
+    public void load() {
+        Map<Key, Map<String, Long>> fresh = new EnumMap<>(Key.class);
+        for (Key key : Key.values()) {
+            fresh.put(key, new ConcurrentHashMap<>());
+        }
+        for (Object[] row : userRepository.findAllIdAndEmail()) {
+            put(fresh, Key.USER_EMAIL, normalise(Key.USER_EMAIL, (String) row[1]), (Long) row[0]);
+        }
+        for (Object[] row : patientRepository.findAllIdEmailAndPhone()) {
+            put(fresh, Key.PATIENT_EMAIL, normalise(Key.PATIENT_EMAIL, (String) row[1]), (Long) row[0]);
+            put(fresh, Key.PATIENT_PHONE, normalise(Key.PATIENT_PHONE, (String) row[2]), (Long) row[0]);
+        }
+        Map<Key, Map<String, Long>> previous = index;
+        if (previous != null) {
+            // Reservations in flight on this node are not in the database yet
+            previous.forEach((key, values) -> values.forEach((value, owner) -> {
+                if (PENDING.equals(owner)) {
+                    fresh.get(key).putIfAbsent(value, PENDING);
+                }
+            }));
+        }
+        index = fresh;
+    }
+
+    // A hit is authoritative; a miss may be a value another node added less than a poll interval ago
+    public boolean contains(Key key, String value) {
+        String normalised = normalise(key, value);
+        return normalised != null && index.get(key).containsKey(normalised);
+    }
+
+    // True if the value is free (or null) and is now held for the caller
+    public boolean reserve(Key key, String value) {
+        String normalised = normalise(key, value);
+        return normalised == null || index.get(key).putIfAbsent(normalised, PENDING) == null;
+    }
+
+    // Like reserve, but a value already owned by ownerId counts as free
+    public boolean reserveFor(Key key, String value, Long ownerId) {
+        String normalised = normalise(key, value);
+        if (normalised == null) {
+            return true;
+        }
+        Long current = index.get(key).putIfAbsent(normalised, PENDING);
+        return current == null || current.equals(ownerId);
+    }
+
+    /**
+     * Records that ownerId now holds the value. Inside a transaction the change
+     * log entry joins it and the local index is only updated once it commits;
+     * on rollback a pending reservation is dropped instead.
+     */
+    public void confirm(Key key, String value, Long ownerId) {
+        String normalised = normalise(key, value);
+        if (normalised == null) {
+            return;
+        }
+        publish(key, ownerId, normalised);
+        afterCommit(() -> index.get(key).put(normalised, ownerId),
+                () -> index.get(key).remove(normalised, PENDING));
+    }
+
+    public void release(Key key, String value) {
+        String normalised = normalise(key, value);
+        if (normalised == null) {
+            return;
+        }
+        publish(key, null, normalised);
+        afterCommit(() -> index.get(key).remove(normalised), null);
+    }
+
+    // Adds a value just read from the database; nothing changed, so nothing is published
+    public void learn(Key key, String value, Long ownerId) {
+        put(index, key, normalise(key, value), ownerId);
+    }
+
+    // Drops the reservation only if it was never confirmed, so a failed attempt cannot free someone else's key
+    public void releaseIfPending(Key key, String value) {
+        String normalised = normalise(key, value);
+        if (normalised != null) {
+            index.get(key).remove(normalised, PENDING);
+        }
+    }
+
+    private void publish(Key key, Long ownerId, String normalised) {
+        String entry = key.name() + '|' + (ownerId == null ? "" : ownerId) + '|' + normalised;
+        coherence.publish(CHANGE_LOG_NAME, entry.length() <= MAX_ENTRY_LENGTH ? entry : RELOAD);
+    }
+
+    private void applyRemote(String entry) {
+        if (RELOAD.equals(entry)) {
+            load();
+            return;
+        }
+        String[] parts = entry.split("\\|", 3);
+        Map<String, Long> values = index.get(Key.valueOf(parts[0]));
+        if (parts[1].isEmpty()) {
+            // Released elsewhere; a reservation of our own for the same value stays ours
+            values.computeIfPresent(parts[2], (value, owner) -> PENDING.equals(owner) ? owner : null);
+        } else {
+            values.put(parts[2], Long.valueOf(parts[1]));
+        }
+    }
+
+    private static void afterCommit(Runnable committed, Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed.run();
+                } else if (rolledBack != null) {
+                    rolledBack.run();
+                }
+            }
+        });
+    }
+
+    private static void put(Map<Key, Map<String, Long>> target, Key key, String normalised, Long ownerId) {
+        if (normalised != null) {
+            target.get(key).put(normalised, ownerId);
+        }
+    }
+
+    static String normalise(Key key, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (key == Key.PATIENT_PHONE) {
+            return value.replaceAll("\\D", "");
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
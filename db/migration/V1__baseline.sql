@@ -0,0 +1,65 @@
+-- Schema as previously produced by ddl-auto=update; skipped on existing databases via baseline-on-migrate
+
+create table if not exists doctor (
+    id bigint not null auto_increment,
+    email varchar(255),
+    name varchar(255),
+    phone varchar(255),
+    specialty varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists patients (
+    id bigint not null auto_increment,
+    address varchar(255),
+    admitted bit not null,
+    admitted_date date,
+    age integer not null,
+    discharge_date date,
+    disease varchar(255),
+    doctor_assigned varchar(255),
+    email varchar(255),
+    gender varchar(255),
+    name varchar(255),
+    phone varchar(255),
+    doctor_id bigint,
+    primary key (id),
+    constraint uk_patients_email unique (email),
+    constraint uk_patients_phone unique (phone),
+    constraint fk_patients_doctor foreign key (doctor_id) references doctor (id)
+) engine=InnoDB;
+
+create table if not exists appointment (
+    id bigint not null auto_increment,
+    date_time datetime(6) not null,
+    reason varchar(255),
+    status enum ('SCHEDULED','CANCELLED','COMPLETED') not null,
+    doctor_id bigint not null,
+    patient_id bigint not null,
+    primary key (id),
+    constraint fk_appointment_doctor foreign key (doctor_id) references doctor (id),
+    constraint fk_appointment_patient foreign key (patient_id) references patients (id)
+) engine=InnoDB;
+
+create table if not exists roles (
+    id bigint not null auto_increment,
+    name enum ('ROLE_ADMIN','ROLE_DOCTOR','ROLE_PATIENT'),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    password varchar(255),
+    provider enum ('LOCAL','GOOGLE'),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists user_roles (
+    user_id bigint not null,
+    role_id bigint not null,
+    primary key (user_id, role_id),
+    constraint fk_user_roles_user foreign key (user_id) references users (id),
+    constraint fk_user_roles_role foreign key (role_id) references roles (id)
+) engine=InnoDB;
@@ -0,0 +1,16 @@
+create table if not exists appointment_archive (
+    id bigint not null,
+    archived_at datetime(6) not null,
+    date_time datetime(6) not null,
+    doctor_id bigint not null,
+    patient_id bigint not null,
+    reason varchar(255),
+    status enum ('SCHEDULED','CANCELLED','COMPLETED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists revoked_tokens (
+    jti varchar(36) not null,
+    expires_at datetime(6) not null,
+    primary key (jti)
+) engine=InnoDB;
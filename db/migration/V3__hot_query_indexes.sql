@@ -0,0 +1,19 @@
+-- AppointmentRepository.findByDoctorId / findByPatientId, ordered by time for the dashboards
+create index idx_appointment_doctor_time on appointment (doctor_id, date_time);
+create index idx_appointment_patient_time on appointment (patient_id, date_time);
+
+-- AppointmentRepository.findByDateTimeBetween (calendar)
+create index idx_appointment_time on appointment (date_time);
+
+-- AppointmentRepository.findArchivableIds, covering: status/date_time filter plus id keyset
+create index idx_appointment_status_time on appointment (status, date_time, id);
+
+-- ArchivedAppointmentRepository.findByPatientIdOrderByDateTimeDesc
+create index idx_archive_patient_time on appointment_archive (patient_id, date_time);
+
+-- RevokedTokenRepository.findActiveJtis / deleteExpired
+create index idx_revoked_expires on revoked_tokens (expires_at);
+
+-- UserRepository.findByEmail / existsByEmail and RoleRepository.findByName
+alter table users add constraint uk_users_email unique (email);
+alter table roles add constraint uk_roles_name unique (name);
@@ -0,0 +1,10 @@
+create table cache_change_log (
+    id bigint not null auto_increment,
+    cache_name varchar(64) not null,
+    created_at datetime(6) not null,
+    entity_key varchar(255) not null,
+    node_id varchar(36) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_cache_change_log_created on cache_change_log (created_at);
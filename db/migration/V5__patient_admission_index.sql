@@ -0,0 +1,2 @@
+-- PatientRepository.findStaysOverlapping (census)
+create index idx_patients_admitted_date on patients (admitted_date);
@@ -0,0 +1,3 @@
+-- PatientRepository.findStaysOverlapping for recent windows: nearly every stay was admitted before the
+-- window ends, so the selective part is "discharge_date is null or discharge_date >= start"
+create index idx_patients_discharge_date on patients (discharge_date);
@@ -0,0 +1,18 @@
+-- IdempotencyFilter: one row per caller, endpoint and key, committed in the same transaction as the create
+create table idempotency_keys (
+    id bigint not null auto_increment,
+    principal varchar(255) not null,
+    uri varchar(100) not null,
+    idempotency_key varchar(255) not null,
+    fingerprint binary(32) not null,
+    status integer not null,
+    content_type varchar(255),
+    headers text,
+    body mediumblob,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    primary key (id),
+    constraint uk_idempotency_keys unique (principal, uri, idempotency_key)
+) engine=InnoDB;
+
+create index idx_idempotency_keys_expires on idempotency_keys (expires_at);
@@ -0,0 +1,2 @@
+-- Calendar reads that reach back past the archive cutoff (ArchivedAppointmentRepository.findByDateTimeBetween)
+create index idx_archive_time on appointment_archive (date_time);
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Starts the application with the guardrails profile (FAIL mode, platform
+# threads) and requests each bounded route once. A route over its statement
+# or allocation limit answers 500 with the offending SQL; the script prints
+# it and exits non-zero.
+#
+#   TOKEN=... scripts/guardrail-check.sh [patient-id] [doctor-id]
+#
+# JAR, BASE and JAVA_OPTS can be overridden from the environment. The database
+# the application connects to must already hold the ids given.
+
+set -euo pipefail
+
+PATIENT_ID=${1:-1}
+DOCTOR_ID=${2:-1}
+JAR=${JAR:-target/PMS-0.0.1-SNAPSHOT.jar}
+BASE=${BASE:-http://localhost:8080}
+TOKEN=${TOKEN:?set TOKEN to a bearer token with ADMIN or DOCTOR role}
+JAVA_OPTS=${JAVA_OPTS:-}
+
+ROUTES=(
+    "/api/patients/$PATIENT_ID"
+    "/api/patients?page=0&size=20"
+    "/api/appointments/doctor/$DOCTOR_ID"
+)
+
+TMP=$(mktemp -d)
+# shellcheck disable=SC2086
+java $JAVA_OPTS -jar "$JAR" --spring.profiles.active=guardrails >"$TMP/app.log" 2>&1 &
+pid=$!
+trap 'kill "$pid" 2>/dev/null || true; wait "$pid" 2>/dev/null || true; rm -rf "$TMP"' EXIT
+
+until [[ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE/api/doctors" || true)" != "000" ]]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+        echo "application exited before serving a request:" >&2
+        tail -n 30 "$TMP/app.log" >&2
+        exit 1
+    fi
+    sleep 0.2
+done
+
+printf '%-44s %6s %10s %16s\n' "route" "status" "statements" "allocated bytes"
+
+failed=0
+for route in "${ROUTES[@]}"; do
+    code=$(curl -s -D "$TMP/headers" -o "$TMP/body" -w '%{http_code}' \
+        -H "Authorization: Bearer $TOKEN" "$BASE$route")
+    header() { grep -i "^$1:" "$TMP/headers" | tr -d '\r' | awk '{print $2}'; }
+    printf '%-44s %6s %10s %16s\n' "$route" "$code" "$(header X-Query-Count)" "$(header X-Allocated-Bytes)"
+    if [[ "$code" == 500 ]]; then
+        sed 's/^/    /' "$TMP/body"
+        failed=1
+    elif [[ ! "$code" =~ ^2 ]]; then
+        echo "    unexpected status; check TOKEN and the ids" >&2
+        failed=1
+    fi
+done
+
+exit "$failed"
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares JSON, CBOR and Smile for one endpoint against a running instance:
+# payload size and server encode + transfer time, averaged over N requests,
+# plus the client-side decode time for each format (needs python3 with cbor2).
+#
+#   TOKEN=... scripts/payload-benchmark.sh [url] [runs]
+#
+# The default URL is the Page<Patient> listing.
+
+set -euo pipefail
+
+URL=${1:-"http://localhost:8080/api/patients?page=0&size=500"}
+RUNS=${2:-20}
+TOKEN=${TOKEN:?set TOKEN to a bearer token with ADMIN or DOCTOR role}
+
+TMP=$(mktemp -d)
+trap 'rm -rf "$TMP"' EXIT
+
+printf '%-28s %12s %14s %14s\n' "format" "bytes" "avg total ms" "decode ms"
+
+for accept in application/json application/cbor application/x-jackson-smile; do
+    total=0
+    for ((i = 1; i <= RUNS; i++)); do
+        t=$(curl -s -o "$TMP/body" -w '%{time_total}' \
+            -H "Authorization: Bearer $TOKEN" -H "Accept: $accept" "$URL")
+        total=$(python3 -c "print($total + $t)")
+    done
+    bytes=$(wc -c < "$TMP/body")
+    avg=$(python3 -c "print(round($total * 1000 / $RUNS, 2))")
+
+    decode=$(python3 - "$accept" "$TMP/body" <<'PY' 2>/dev/null || echo "n/a"
+import json, sys, time
+accept, path = sys.argv[1], sys.argv[2]
+data = open(path, "rb").read()
+if accept == "application/json":
+    load = json.loads
+elif accept == "application/cbor":
+    import cbor2
+    load = cbor2.loads
+else:
+    raise SystemExit(1)  # no common Python Smile decoder
+start = time.perf_counter()
+for _ in range(50):
+    load(data)
+print(round((time.perf_counter() - start) * 1000 / 50, 3))
+PY
+)
+    printf '%-28s %12s %14s %14s\n' "$accept" "$bytes" "$avg" "$decode"
+done
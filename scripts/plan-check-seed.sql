@@ -0,0 +1,77 @@
+-- Synthetic data for the plan-check profile (Config/QueryPlanCheck). Run it
+-- once against a scratch database that Flyway has already migrated:
+--
+--   mysql -u root -p pms_plan_check < scripts/plan-check-seed.sql
+--
+-- The shape follows production rather than the volume: appointments spread
+-- over three years and mostly finished, a few percent scheduled ahead, stays
+-- mostly discharged, revoked tokens mostly expired and a change log that the
+-- cleanup keeps to the last hour. Selectivity is what decides the plans, so
+-- keep it realistic when adding tables here.
+
+set session cte_max_recursion_depth = 200000;
+
+set @doctors = 200;
+set @patients = 20000;
+set @appointments = 100000;
+set @d0 = (select coalesce(max(id), 0) from doctor);
+set @p0 = (select coalesce(max(id), 0) from patients);
+set @u0 = (select coalesce(max(id), 0) from users);
+set @x0 = greatest((select coalesce(max(id), 0) from appointment),
+                   (select coalesce(max(id), 0) from appointment_archive)) + 1000000;
+
+insert into doctor (id, name, specialty, email, phone)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @doctors)
+select @d0 + n, concat('Doctor ', @d0 + n), elt(1 + n % 4, 'Cardiology', 'Neurology', 'Oncology', 'General'),
+       concat('plan-check-doctor-', @d0 + n, '@example.com'), concat('+1555', lpad(@d0 + n, 7, '0'))
+from seq;
+
+-- About 2% still in house, the rest discharged after 1 to 14 days
+insert into patients (id, name, age, gender, email, phone, address, disease, admitted, admitted_date,
+                      discharge_date, doctor_id)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @patients)
+select @p0 + n, concat('Patient ', @p0 + n), 18 + n % 70, if(n % 2 = 0, 'F', 'M'),
+       concat('plan-check-patient-', @p0 + n, '@example.com'), concat('+1666', lpad(@p0 + n, 7, '0')),
+       'Seed Street', elt(1 + n % 3, 'Flu', 'Fracture', 'Observation'),
+       n % 50 = 0,
+       if(n % 50 = 0, curdate() - interval (n % 20) day, curdate() - interval ((n * 37) % 1825 + 14) day),
+       if(n % 50 = 0, null, curdate() - interval ((n * 37) % 1825 + 14) day + interval (1 + n % 14) day),
+       @d0 + 1 + n % @doctors
+from seq;
+
+-- About 3% scheduled within the next 30 days, the rest finished over the past three years
+insert into appointment (date_time, reason, status, patient_id, doctor_id)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @appointments)
+select if(n % 33 = 0,
+          now() + interval ((n * 7919) % (30 * 24 * 60)) minute,
+          now() - interval ((n * 7919) % (3 * 365 * 24 * 60) + 60) minute),
+       'Checkup',
+       case when n % 33 = 0 then 'SCHEDULED' when n % 5 = 0 then 'CANCELLED' else 'COMPLETED' end,
+       @p0 + 1 + (n * 31) % @patients,
+       @d0 + 1 + n % @doctors
+from seq;
+
+insert into appointment_archive (id, archived_at, date_time, doctor_id, patient_id, reason, status)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @patients)
+select @x0 + n, now(), now() - interval (3 * 365 * 24 * 60 + (n * 7919) % (2 * 365 * 24 * 60)) minute,
+       @d0 + 1 + n % @doctors, @p0 + 1 + (n * 17) % @patients, 'Checkup', if(n % 5 = 0, 'CANCELLED', 'COMPLETED')
+from seq;
+
+insert into users (email, password, provider, username)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @patients)
+select concat('plan-check-user-', @u0 + n, '@example.com'), null, 'GOOGLE', concat('plan-check-user-', @u0 + n)
+from seq;
+
+-- About 5% not yet expired
+insert into revoked_tokens (jti, expires_at)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @patients)
+select uuid(), if(n % 20 = 0, now() + interval (n % 900) second, now() - interval (n % 30) day - interval 1 minute)
+from seq;
+
+-- About 5% older than an hour, as if the cleanup had just missed them
+insert into cache_change_log (cache_name, created_at, entity_key, node_id)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @patients)
+select elt(1 + n % 3, 'uniqueness', 'availability', 'census'),
+       if(n % 20 = 0, now() - interval 1 hour - interval (n % 600) second, now() - interval (n % 3000) second),
+       concat(n % 1000), 'plan-check-seed'
+from seq;
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful HTTP response.
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# JAR, URL, TOKEN and JAVA_OPTS can be overridden from the environment. Without
+# TOKEN any non-5xx answer counts (a 401 from /api/doctors proves the security
+# chain is up); with TOKEN the request must return 2xx.
+# Compare e.g. a plain build against `mvn -Pfast-startup package` and
+# JAR=target/extracted/PMS-0.0.1-SNAPSHOT.jar
+# JAVA_OPTS="-Dspring.aot.enabled=true -XX:SharedArchiveFile=target/extracted/application.jsa".
+
+set -euo pipefail
+
+RUNS=${1:-5}
+JAR=${JAR:-target/PMS-0.0.1-SNAPSHOT.jar}
+URL=${URL:-http://localhost:8080/api/doctors}
+TOKEN=${TOKEN:-}
+JAVA_OPTS=${JAVA_OPTS:-}
+PROFILE=${PROFILE:-prod}
+
+now_ms() { date +%s%3N; }
+
+ok() {
+    local code
+    if [[ -n "$TOKEN" ]]; then
+        code=$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $TOKEN" "$URL" || true)
+        [[ "$code" =~ ^2 ]]
+    else
+        code=$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)
+        [[ "$code" != "000" && ! "$code" =~ ^5 ]]
+    fi
+}
+
+total=0
+for ((i = 1; i <= RUNS; i++)); do
+    start=$(now_ms)
+    # shellcheck disable=SC2086
+    java $JAVA_OPTS -jar "$JAR" --spring.profiles.active="$PROFILE" >/dev/null 2>&1 &
+    pid=$!
+
+    until ok; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "run $i: application exited before serving a request" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    echo "run $i: first successful request after ${elapsed} ms"
+    total=$((total + elapsed))
+done
+
+echo "average over $RUNS runs: $((total / RUNS)) ms"